@@ -0,0 +1,92 @@
+/*
+ * Copyright © 2025 BellSoft (info@bell-sw.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.asm0dey.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.asm0dey.chatapi.model.ChatMessage;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson (de)serialization of the chat-api and bot-assistant {@code ChatMessage} types,
+ * which are exchanged on every bot request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatMessageJsonBenchmark {
+
+    private ObjectMapper objectMapper;
+    private ChatMessage chatApiMessage;
+    private com.github.asm0dey.botassistant.model.ChatMessage botMessage;
+    private String chatApiJson;
+    private String botJson;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+
+        chatApiMessage = new ChatMessage();
+        chatApiMessage.setId("66a1f0c2e4b0a1b2c3d4e5f6");
+        chatApiMessage.setSessionId("66a1f0c2e4b0a1b2c3d4e5f7");
+        chatApiMessage.setSenderId("user-1");
+        chatApiMessage.setSenderName("Test User");
+        chatApiMessage.setType(ChatMessage.MessageType.CHAT);
+        chatApiMessage.setContent("What is the difference between a record and a class in Java?");
+        chatApiMessage.setTimestamp(LocalDateTime.of(2025, 1, 1, 12, 0));
+
+        botMessage = new com.github.asm0dey.botassistant.model.ChatMessage(
+                null,
+                "66a1f0c2e4b0a1b2c3d4e5f7",
+                "bot",
+                "Bot Assistant",
+                com.github.asm0dey.botassistant.model.ChatMessage.MessageType.BOT,
+                "A record is a transparent carrier for immutable data; a class can hold any state and behaviour.",
+                LocalDateTime.of(2025, 1, 1, 12, 0, 1),
+                true
+        );
+
+        chatApiJson = objectMapper.writeValueAsString(chatApiMessage);
+        botJson = objectMapper.writeValueAsString(botMessage);
+    }
+
+    @Benchmark
+    public String serializeChatApiMessage() throws Exception {
+        return objectMapper.writeValueAsString(chatApiMessage);
+    }
+
+    @Benchmark
+    public ChatMessage deserializeChatApiMessage() throws Exception {
+        return objectMapper.readValue(chatApiJson, ChatMessage.class);
+    }
+
+    @Benchmark
+    public String serializeBotMessage() throws Exception {
+        return objectMapper.writeValueAsString(botMessage);
+    }
+
+    @Benchmark
+    public com.github.asm0dey.botassistant.model.ChatMessage deserializeBotMessage() throws Exception {
+        return objectMapper.readValue(botJson, com.github.asm0dey.botassistant.model.ChatMessage.class);
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright © 2025 BellSoft (info@bell-sw.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.asm0dey.benchmarks;
+
+import gg.jte.generated.precompiled.StaticTemplates;
+import gg.jte.generated.precompiled.Templates;
+import gg.jte.output.StringOutput;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering of the precompiled chat-api {@code chat-view} template through its {@code JteModel}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JteRenderBenchmark {
+
+    private Templates templates;
+
+    @Setup
+    public void setUp() {
+        templates = new StaticTemplates();
+    }
+
+    @Benchmark
+    public String renderChatView() {
+        StringOutput output = new StringOutput();
+        templates.chatView("Chat Application - Chat", true, "Test User", "66a1f0c2e4b0a1b2c3d4e5f7", false)
+                .render(output);
+        return output.toString();
+    }
+}
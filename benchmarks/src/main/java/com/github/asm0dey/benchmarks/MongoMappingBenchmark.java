@@ -0,0 +1,110 @@
+/*
+ * Copyright © 2025 BellSoft (info@bell-sw.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.asm0dey.benchmarks;
+
+import com.github.asm0dey.chatapi.model.ChatMessage;
+import com.github.asm0dey.chatapi.model.ChatSession;
+import org.bson.Document;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping of {@link ChatSession} and {@link ChatMessage} to and from BSON documents,
+ * as done by {@link MappingMongoConverter} on every repository read and write.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MongoMappingBenchmark {
+
+    private MappingMongoConverter converter;
+    private ChatSession session;
+    private ChatMessage message;
+    private Document sessionDocument;
+    private Document messageDocument;
+
+    @Setup
+    public void setUp() {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+
+        converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+
+        LocalDateTime now = LocalDateTime.of(2025, 1, 1, 12, 0);
+        session = ChatSession.builder()
+                .id("66a1f0c2e4b0a1b2c3d4e5f7")
+                .name("General")
+                .description("General discussion")
+                .createdBy("user-1")
+                .participants(List.of("user-1", "user-2", "user-3"))
+                .createdAt(now)
+                .updatedAt(now)
+                .lastMessageAt(now)
+                .build();
+
+        message = new ChatMessage();
+        message.setId("66a1f0c2e4b0a1b2c3d4e5f6");
+        message.setSessionId(session.getId());
+        message.setSenderId("user-1");
+        message.setSenderName("Test User");
+        message.setType(ChatMessage.MessageType.CHAT);
+        message.setContent("What is the difference between a record and a class in Java?");
+        message.setTimestamp(now);
+
+        sessionDocument = new Document();
+        converter.write(session, sessionDocument);
+        messageDocument = new Document();
+        converter.write(message, messageDocument);
+    }
+
+    @Benchmark
+    public Document writeSession() {
+        Document document = new Document();
+        converter.write(session, document);
+        return document;
+    }
+
+    @Benchmark
+    public ChatSession readSession() {
+        return converter.read(ChatSession.class, sessionDocument);
+    }
+
+    @Benchmark
+    public Document writeMessage() {
+        Document document = new Document();
+        converter.write(message, document);
+        return document;
+    }
+
+    @Benchmark
+    public ChatMessage readMessage() {
+        return converter.read(ChatMessage.class, messageDocument);
+    }
+}
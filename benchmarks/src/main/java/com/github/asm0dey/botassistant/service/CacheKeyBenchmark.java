@@ -0,0 +1,96 @@
+/*
+ * Copyright © 2025 BellSoft (info@bell-sw.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.asm0dey.botassistant.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.asm0dey.botassistant.model.ChatMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache key generation in {@link CacheService}, compared with the content-based normalization it replaced.
+ * The service is wired to a connection factory that is never started, so no Redis is needed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheKeyBenchmark {
+
+    @Param({"32", "512", "8192"})
+    private int promptLength;
+
+    private CacheService cacheService;
+    private ChatMessage message;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        Jackson2JsonRedisSerializer<Object> jsonSerializer = new Jackson2JsonRedisSerializer<>(objectMapper, Object.class);
+        LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory();
+
+        RedisTemplate<String, Object> redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(connectionFactory);
+        redisTemplate.setKeySerializer(new StringRedisSerializer());
+        redisTemplate.setValueSerializer(jsonSerializer);
+        redisTemplate.afterPropertiesSet();
+
+        ReactiveRedisTemplate<String, Object> reactiveRedisTemplate = new ReactiveRedisTemplate<>(connectionFactory,
+                RedisSerializationContext.<String, Object>newSerializationContext(new StringRedisSerializer())
+                        .value(jsonSerializer)
+                        .build());
+
+        RedisMessageListenerContainer listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(connectionFactory);
+
+        cacheService = new CacheService(redisTemplate, reactiveRedisTemplate, objectMapper,
+                new CacheReaper(redisTemplate), new StaticListableBeanFactory().getBeanProvider(SemanticCache.class),
+                listenerContainer, new SimpleMeterRegistry(), 10_000, Duration.ofMinutes(10), true, false);
+
+        StringBuilder content = new StringBuilder(promptLength);
+        String words = "  What IS the Difference between\ta Record and a Class in Java?\n";
+        while (content.length() < promptLength) {
+            content.append(words);
+        }
+        content.setLength(promptLength);
+        message = new ChatMessage(null, "session", "user-1", "Test User",
+                ChatMessage.MessageType.CHAT, content.toString(), LocalDateTime.now(), false);
+    }
+
+    @Benchmark
+    public String generateCacheKey() {
+        return cacheService.generateCacheKey(message);
+    }
+
+    @Benchmark
+    public String legacyNormalizedKey() {
+        return "bot:response:" + PromptNormalizer.legacyNormalize(message.content());
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright © 2025 BellSoft (info@bell-sw.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.asm0dey.botassistant.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Extraction of the answer from an OpenAI chat completion response in {@link ChatService}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatServiceBenchmark {
+
+    private static final String COMPLETION = """
+            {
+              "id": "chatcmpl-123",
+              "object": "chat.completion",
+              "created": 1735732800,
+              "model": "gpt-3.5-turbo",
+              "choices": [{
+                "index": 0,
+                "message": {
+                  "role": "assistant",
+                  "content": "A record is a transparent carrier for immutable data; a class can hold any state and behaviour."
+                },
+                "finish_reason": "stop"
+              }],
+              "usage": {"prompt_tokens": 32, "completion_tokens": 21, "total_tokens": 53}
+            }
+            """;
+
+    private ObjectMapper objectMapper;
+    private Map<String, Object> response;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = new ObjectMapper();
+        response = objectMapper.readValue(COMPLETION, new TypeReference<>() {
+        });
+    }
+
+    @Benchmark
+    public String extractContentFromResponse() {
+        return ChatService.extractContentFromResponse(response);
+    }
+
+    @Benchmark
+    public String parseAndExtractContent() throws Exception {
+        Map<String, Object> parsed = objectMapper.readValue(COMPLETION, new TypeReference<>() {
+        });
+        return ChatService.extractContentFromResponse(parsed);
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright © 2025 BellSoft (info@bell-sw.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.asm0dey.chatapi.config;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link PartitionedExecutor} as lanes are added, with CPU-bound handlers spread over 64 chat sessions.
+ * Scores are messages per second; they should grow with the lane count up to the number of cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PartitionedExecutorBenchmark {
+    private static final int SESSIONS = 64;
+    private static final int BATCH = 1024;
+
+    @Param({"1", "2", "4", "8", "16"})
+    private int lanes;
+
+    @Param({"2000"})
+    private long workTokens;
+
+    private PartitionedExecutor executor;
+    private Message<?>[] messages;
+
+    @Setup
+    public void setUp() {
+        executor = new PartitionedExecutor(lanes, Thread.ofPlatform().daemon(true).factory(), task -> task);
+        messages = new Message<?>[SESSIONS];
+        for (int s = 0; s < SESSIONS; s++) {
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
+            accessor.setDestination("/app/chat/session-" + s);
+            accessor.setSessionId("ws-" + s);
+            messages[s] = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void handleBatch() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            executor.execute(new Task(messages[i % SESSIONS], () -> {
+                Blackhole.consumeCPU(workTokens);
+                done.countDown();
+            }));
+        }
+        done.await();
+    }
+
+    private record Task(Message<?> message, Runnable work) implements MessageHandlingRunnable {
+        @Override
+        public Message<?> getMessage() {
+            return message;
+        }
+
+        @Override
+        public MessageHandler getMessageHandler() {
+            return m -> work.run();
+        }
+
+        @Override
+        public void run() {
+            work.run();
+        }
+    }
+}
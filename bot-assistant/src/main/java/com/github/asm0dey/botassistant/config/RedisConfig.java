@@ -27,7 +27,9 @@ import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
@@ -45,9 +47,10 @@ public class RedisConfig {
 
     /**
      * Redis connection factory.
+     * Exposed as {@link LettuceConnectionFactory} so it can serve both the blocking and the reactive templates.
      */
     @Bean
-    public RedisConnectionFactory redisConnectionFactory(RedisConnectionDetails redisConnectionDetails) {
+    public LettuceConnectionFactory redisConnectionFactory(RedisConnectionDetails redisConnectionDetails) {
         RedisStandaloneConfiguration redisConfig = new RedisStandaloneConfiguration();
         redisConfig.setHostName(redisConnectionDetails.getStandalone().getHost());
         redisConfig.setPort(redisConnectionDetails.getStandalone().getPort());
@@ -71,6 +74,30 @@ public class RedisConfig {
         return template;
     }
 
+    /**
+     * Reactive Redis template backed by the Lettuce reactive API.
+     * Uses the same serializers as {@link #redisTemplate} so both templates read each other's entries.
+     */
+    @Bean
+    public ReactiveRedisTemplate<String, Object> reactiveRedisTemplate(LettuceConnectionFactory connectionFactory, Jackson2JsonRedisSerializer<Object> jsonSerializer) {
+        RedisSerializationContext<String, Object> serializationContext = RedisSerializationContext
+                .<String, Object>newSerializationContext(new StringRedisSerializer())
+                .value(jsonSerializer)
+                .hashKey(new StringRedisSerializer())
+                .hashValue(jsonSerializer)
+                .build();
+        return new ReactiveRedisTemplate<>(connectionFactory, serializationContext);
+    }
+
+    /**
+     * Listener container for Redis pub/sub, used to keep the in-process L1 response cache coherent across replicas.
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
 
     /**
      * Cache manager for Redis.
@@ -0,0 +1,78 @@
+/*
+ * Copyright © 2025 BellSoft (info@bell-sw.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.asm0dey.botassistant.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.asm0dey.botassistant.service.HashingEmbeddingModel;
+import com.github.asm0dey.botassistant.service.SemanticCache;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Configuration for the opt-in semantic response cache.
+ */
+@Configuration
+@ConditionalOnProperty(name = "bot.cache.semantic.enabled", havingValue = "true")
+public class SemanticCacheConfig {
+
+    private static final double LOCAL_SIMILARITY_THRESHOLD = 0.75;
+    private static final double OPENAI_SIMILARITY_THRESHOLD = 0.9;
+
+    @Value("${bot.cache.semantic.embedding-model:local}")
+    private String embeddingModel;
+
+    @Value("${bot.cache.semantic.local-dimensions:256}")
+    private int localDimensions;
+
+    /**
+     * Unset means the default of the embedding model: the local hashing model scores paraphrases lower than OpenAI.
+     */
+    @Value("${bot.cache.semantic.similarity-threshold:#{null}}")
+    private Double similarityThreshold;
+
+    @Value("${bot.cache.semantic.max-items:100000}")
+    private int maxItems;
+
+    @Value("${bot.cache.semantic.time-to-live:24h}")
+    private Duration timeToLive;
+
+    @Value("${bot.cache.semantic.index-file:data/semantic-cache.hnsw}")
+    private Path indexFile;
+
+    @Value("${bot.cache.semantic.save-interval:5m}")
+    private Duration saveInterval;
+
+    /**
+     * Semantic cache, embedding prompts either with the local hashing model or with the Spring AI embedding model.
+     */
+    @Bean(destroyMethod = "close")
+    public SemanticCache semanticCache(ObjectMapper objectMapper, ObjectProvider<EmbeddingModel> embeddingModels) {
+        EmbeddingModel model = "local".equalsIgnoreCase(embeddingModel)
+                ? new HashingEmbeddingModel(localDimensions)
+                : embeddingModels.getObject();
+        double threshold = similarityThreshold != null
+                ? similarityThreshold
+                : "local".equalsIgnoreCase(embeddingModel) ? LOCAL_SIMILARITY_THRESHOLD : OPENAI_SIMILARITY_THRESHOLD;
+        return new SemanticCache(model, objectMapper, threshold, maxItems, timeToLive, indexFile, saveInterval);
+    }
+}
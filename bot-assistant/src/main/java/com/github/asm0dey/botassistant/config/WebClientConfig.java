@@ -18,37 +18,90 @@ package com.github.asm0dey.botassistant.config;
 import io.netty.channel.ChannelOption;
 import io.netty.handler.timeout.ReadTimeoutHandler;
 import io.netty.handler.timeout.WriteTimeoutHandler;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.ExchangeStrategies;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
 import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 import java.time.Duration;
 import java.util.concurrent.TimeUnit;
 
 /**
  * WebClient configuration for communication with external APIs.
+ * <p>
+ * All clients share one named Reactor Netty {@link ConnectionProvider}, so connections to
+ * OpenAI are pooled and reused. Pool gauges are published to Micrometer under
+ * {@code reactor.netty.connection.provider.*} and can be inspected via the actuator metrics endpoint.
  */
 @Configuration
 public class WebClientConfig {
 
+    @Value("${bot.openai.http.pool.name:openai}")
+    private String poolName;
+
+    @Value("${bot.openai.http.pool.max-connections:500}")
+    private int maxConnections;
+
+    @Value("${bot.openai.http.pool.pending-acquire-max-count:1000}")
+    private int pendingAcquireMaxCount;
+
+    @Value("${bot.openai.http.pool.pending-acquire-timeout:5s}")
+    private Duration pendingAcquireTimeout;
+
+    @Value("${bot.openai.http.pool.max-idle-time:30s}")
+    private Duration maxIdleTime;
+
+    @Value("${bot.openai.http.pool.max-life-time:5m}")
+    private Duration maxLifeTime;
+
+    @Value("${bot.openai.http.pool.evict-in-background:30s}")
+    private Duration evictInBackground;
+
+    @Value("${bot.openai.http.http2-enabled:false}")
+    private boolean http2Enabled;
+
+    /**
+     * Pooled connection provider shared by all outgoing HTTP calls.
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider connectionProvider() {
+        return ConnectionProvider.builder(poolName)
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(maxLifeTime)
+                .evictInBackground(evictInBackground)
+                .metrics(true)
+                .build();
+    }
+
     /**
      * Configure WebClient with timeout and logging.
      */
     @Bean
-    public WebClient.Builder webClientBuilder() {
+    public WebClient.Builder webClientBuilder(ConnectionProvider connectionProvider) {
         // Configure HTTP client with timeouts
-        HttpClient httpClient = HttpClient.create()
+        HttpClient httpClient = HttpClient.create(connectionProvider)
                 .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 5000)
                 .responseTimeout(Duration.ofSeconds(10))
                 .doOnConnected(conn ->
                         conn.addHandlerLast(new ReadTimeoutHandler(10, TimeUnit.SECONDS))
                                 .addHandlerLast(new WriteTimeoutHandler(10, TimeUnit.SECONDS)));
 
+        if (http2Enabled) {
+            // Negotiated via ALPN, falling back to HTTP/1.1 when the server does not support HTTP/2
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+
         // Configure memory allocation for large responses
         ExchangeStrategies exchangeStrategies = ExchangeStrategies.builder()
                 .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(16 * 1024 * 1024))
@@ -61,6 +114,20 @@ public class WebClientConfig {
                 .filter(logResponse());
     }
 
+    /**
+     * WebClient for the OpenAI API, built once at startup and reused for every request.
+     */
+    @Bean
+    public WebClient openAiWebClient(WebClient.Builder webClientBuilder,
+                                     @Value("${spring.ai.openai.base-url:https://api.openai.com}") String openaiBaseUrl,
+                                     @Value("${spring.ai.openai.api-key}") String openaiApiKey) {
+        // Clone so the shared builder is not modified for other users
+        return webClientBuilder.clone()
+                .baseUrl(openaiBaseUrl)
+                .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + openaiApiKey)
+                .build();
+    }
+
     /**
      * Log request details.
      */
@@ -20,8 +20,17 @@ import com.github.asm0dey.botassistant.service.CacheService;
 import com.github.asm0dey.botassistant.service.ChatService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
 
 /**
  * REST controller for the Bot Assistant.
@@ -33,23 +42,58 @@ public class BotController {
 
     private final ChatService chatService;
     private final CacheService cacheService;
+    private final int maxBatchSize;
 
-    public BotController(ChatService chatService, CacheService cacheService) {
+    public BotController(ChatService chatService, CacheService cacheService,
+                         @Value("${bot.batch.max-size:100}") int maxBatchSize) {
         this.chatService = chatService;
         this.cacheService = cacheService;
+        this.maxBatchSize = maxBatchSize;
     }
 
     /**
      * Process a chat message and generate a response.
+     * The request is handled asynchronously, so the servlet thread is released
+     * while the response is being generated.
      *
      * @param message the message to process
      * @return the generated response
      */
     @PostMapping("/process")
-    public ResponseEntity<ChatMessage> processMessage(@RequestBody ChatMessage message) {
+    public Mono<ChatMessage> processMessage(@RequestBody ChatMessage message) {
         log.info("Received message for processing: {}", message.content());
-        ChatMessage response = chatService.processMessage(message);
-        return ResponseEntity.ok(response);
+        return chatService.processMessageReactive(message);
+    }
+
+    /**
+     * Process several chat messages in one request.
+     * Cached responses are resolved with a single Redis round trip and the rest are generated concurrently.
+     *
+     * @param messages the messages to process
+     * @return the generated responses, in the order of the messages
+     */
+    @PostMapping("/process/batch")
+    public Mono<List<ChatMessage>> processMessages(@RequestBody List<ChatMessage> messages) {
+        log.info("Received batch of {} messages for processing", messages.size());
+        if (messages.size() > maxBatchSize) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Batch size " + messages.size() + " exceeds the limit of " + maxBatchSize));
+        }
+        return chatService.processMessagesReactive(messages);
+    }
+
+    /**
+     * Process a chat message and stream the response as Server-Sent Events.
+     * Partial responses are sent as {@value ChatService#DELTA_EVENT} events while the model
+     * generates them, followed by a single {@value ChatService#COMPLETE_EVENT} event with the full response.
+     *
+     * @param message the message to process
+     * @return the stream of response events
+     */
+    @PostMapping(value = "/process/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<ChatMessage>> processMessageStream(@RequestBody ChatMessage message) {
+        log.info("Received message for streaming: {}", message.content());
+        return chatService.streamMessage(message);
     }
 
     /**
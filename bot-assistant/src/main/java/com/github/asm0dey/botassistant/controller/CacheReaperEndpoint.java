@@ -0,0 +1,45 @@
+/*
+ * Copyright © 2025 BellSoft (info@bell-sw.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.asm0dey.botassistant.controller;
+
+import com.github.asm0dey.botassistant.service.CacheReaper;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint reporting the progress of the cache reaper.
+ */
+@Component
+@Endpoint(id = "cachereaper")
+public class CacheReaperEndpoint {
+
+    private final CacheReaper cacheReaper;
+
+    public CacheReaperEndpoint(CacheReaper cacheReaper) {
+        this.cacheReaper = cacheReaper;
+    }
+
+    /**
+     * Get the reaper progress.
+     *
+     * @return the reaper status
+     */
+    @ReadOperation
+    public CacheReaper.Status status() {
+        return cacheReaper.getStatus();
+    }
+}
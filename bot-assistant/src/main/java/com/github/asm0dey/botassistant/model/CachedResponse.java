@@ -0,0 +1,26 @@
+/*
+ * Copyright © 2025 BellSoft (info@bell-sw.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.asm0dey.botassistant.model;
+
+/**
+ * A cached bot response together with the prompt it answers.
+ * The prompt is kept so that a lookup by key digest can verify it hit the right entry.
+ */
+public record CachedResponse(
+        String prompt,
+        ChatMessage response
+) {
+}
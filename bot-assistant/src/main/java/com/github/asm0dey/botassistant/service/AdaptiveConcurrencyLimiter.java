@@ -0,0 +1,257 @@
+/*
+ * Copyright © 2025 BellSoft (info@bell-sw.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.asm0dey.botassistant.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Adaptive concurrency limiter (bulkhead) for upstream calls.
+ * <p>
+ * The limit follows AIMD: every call that completes within the latency threshold grows it by
+ * roughly one per limit's worth of calls, and every slow or failed call shrinks it by the backoff ratio.
+ * Calls over the limit wait in a bounded queue for a bounded time and are rejected with
+ * {@link LimitExceededException} when the queue is full or the wait runs out.
+ */
+@Service
+public class AdaptiveConcurrencyLimiter {
+    private static final Logger log = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+
+    private final boolean enabled;
+    private final double minLimit;
+    private final double maxLimit;
+    private final double backoffRatio;
+    private final long latencyThresholdNanos;
+    private final int maxQueueSize;
+    private final Duration maxWait;
+
+    private final Deque<Waiter> queue = new ArrayDeque<>();
+    private double limit;
+    private int inFlight;
+
+    private final Counter queueFullRejections;
+    private final Counter timeoutRejections;
+
+    public AdaptiveConcurrencyLimiter(MeterRegistry meterRegistry,
+                                      @Value("${bot.limiter.enabled:true}") boolean enabled,
+                                      @Value("${bot.limiter.initial-limit:20}") int initialLimit,
+                                      @Value("${bot.limiter.min-limit:2}") int minLimit,
+                                      @Value("${bot.limiter.max-limit:200}") int maxLimit,
+                                      @Value("${bot.limiter.backoff-ratio:0.9}") double backoffRatio,
+                                      @Value("${bot.limiter.latency-threshold:3s}") Duration latencyThreshold,
+                                      @Value("${bot.limiter.max-queue-size:100}") int maxQueueSize,
+                                      @Value("${bot.limiter.max-wait:2s}") Duration maxWait) {
+        this.enabled = enabled;
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.maxQueueSize = maxQueueSize;
+        this.maxWait = maxWait;
+
+        Gauge.builder("bot.limiter.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current concurrency limit for upstream calls")
+                .register(meterRegistry);
+        Gauge.builder("bot.limiter.in-flight", this, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Upstream calls currently in flight")
+                .register(meterRegistry);
+        Gauge.builder("bot.limiter.queue-depth", this, AdaptiveConcurrencyLimiter::getQueueDepth)
+                .description("Calls waiting for a permit")
+                .register(meterRegistry);
+        this.queueFullRejections = rejectionCounter(meterRegistry, "queue-full");
+        this.timeoutRejections = rejectionCounter(meterRegistry, "timeout");
+    }
+
+    /**
+     * Run a call once a permit is available.
+     *
+     * @param call the upstream call
+     * @return a Mono emitting the call's result, or failing with {@link LimitExceededException} if rejected
+     */
+    public <T> Mono<T> execute(Supplier<Mono<T>> call) {
+        if (!enabled) {
+            return Mono.defer(call);
+        }
+        return acquire().flatMap(permit -> call.get()
+                .doOnNext(value -> permit.onFirstResponse())
+                .doFinally(permit::release));
+    }
+
+    /**
+     * Run a streaming call once a permit is available.
+     * The latency sample is the time to the first element, so long streams are not mistaken for slow ones.
+     *
+     * @param call the upstream call
+     * @return a Flux emitting the call's elements, or failing with {@link LimitExceededException} if rejected
+     */
+    public <T> Flux<T> executeMany(Supplier<Flux<T>> call) {
+        if (!enabled) {
+            return Flux.defer(call);
+        }
+        return acquire().flatMapMany(permit -> call.get()
+                .doOnNext(value -> permit.onFirstResponse())
+                .doFinally(permit::release));
+    }
+
+    public synchronized double getLimit() {
+        return limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getQueueDepth() {
+        return queue.size();
+    }
+
+    private Mono<Permit> acquire() {
+        return Mono.<Permit>create(sink -> {
+            Waiter waiter = new Waiter(sink);
+            synchronized (this) {
+                if (inFlight < (int) limit) {
+                    inFlight++;
+                    waiter.claim();
+                } else if (queue.size() < maxQueueSize) {
+                    queue.addLast(waiter);
+                    sink.onCancel(() -> cancel(waiter));
+                    return;
+                } else {
+                    queueFullRejections.increment();
+                    sink.error(new LimitExceededException("Upstream concurrency limit reached and wait queue is full"));
+                    return;
+                }
+            }
+            sink.success(new Permit());
+        }).timeout(maxWait)
+                .onErrorMap(TimeoutException.class, e -> {
+                    timeoutRejections.increment();
+                    return new LimitExceededException("Timed out waiting for an upstream concurrency permit");
+                });
+    }
+
+    private void cancel(Waiter waiter) {
+        boolean releasePermit;
+        synchronized (this) {
+            // A waiter that lost the race to its permit must hand the permit back
+            releasePermit = !waiter.claim();
+            queue.remove(waiter);
+        }
+        if (releasePermit) {
+            onRelease(null, SignalType.CANCEL);
+        }
+    }
+
+    /**
+     * Return a permit, adjust the limit from the latency sample and admit waiting calls.
+     *
+     * @param latencyNanos the observed latency, or null if the call produced no sample
+     * @param signal       how the call terminated
+     */
+    private void onRelease(Long latencyNanos, SignalType signal) {
+        Deque<Waiter> admitted = new ArrayDeque<>();
+        synchronized (this) {
+            inFlight--;
+            if (signal == SignalType.ON_ERROR || (latencyNanos != null && latencyNanos > latencyThresholdNanos)) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+                log.debug("Decreased upstream concurrency limit to {}", limit);
+            } else if (signal == SignalType.ON_COMPLETE && latencyNanos != null) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+
+            while (inFlight < (int) limit && !queue.isEmpty()) {
+                Waiter waiter = queue.pollFirst();
+                if (waiter.claim()) {
+                    inFlight++;
+                    admitted.add(waiter);
+                }
+            }
+        }
+        admitted.forEach(waiter -> waiter.sink.success(new Permit()));
+    }
+
+    private static Counter rejectionCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("bot.limiter.rejections")
+                .description("Upstream calls rejected by the concurrency limiter")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    /**
+     * A call waiting for a permit. Claiming settles the race between being admitted and being cancelled.
+     */
+    private static final class Waiter {
+        private final MonoSink<Permit> sink;
+        private final AtomicBoolean claimed = new AtomicBoolean(false);
+
+        private Waiter(MonoSink<Permit> sink) {
+            this.sink = sink;
+        }
+
+        private boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+    }
+
+    /**
+     * A granted permit, released exactly once when the call terminates.
+     */
+    private final class Permit {
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean(false);
+        private volatile long firstResponseNanos;
+
+        private void onFirstResponse() {
+            if (firstResponseNanos == 0) {
+                firstResponseNanos = System.nanoTime();
+            }
+        }
+
+        private void release(SignalType signal) {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            long end = firstResponseNanos != 0 ? firstResponseNanos : System.nanoTime();
+            onRelease(signal == SignalType.CANCEL ? null : end - startNanos, signal);
+        }
+    }
+
+    /**
+     * Thrown when a call is rejected instead of waiting for the upstream to recover.
+     */
+    public static class LimitExceededException extends RuntimeException {
+        public LimitExceededException(String message) {
+            super(message);
+        }
+    }
+}
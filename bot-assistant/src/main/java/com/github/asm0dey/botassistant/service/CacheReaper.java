@@ -0,0 +1,157 @@
+/*
+ * Copyright © 2025 BellSoft (info@bell-sw.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.asm0dey.botassistant.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reclaims cached responses left behind by previous cache generations.
+ * <p>
+ * Keys are walked incrementally with SCAN and removed with UNLINK in batches,
+ * so Redis is never blocked for the whole keyspace.
+ */
+@Service
+public class CacheReaper {
+    private static final Logger log = LoggerFactory.getLogger(CacheReaper.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "bot-cache-reaper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong targetGeneration = new AtomicLong(0);
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private final AtomicLong scannedKeys = new AtomicLong(0);
+    private final AtomicLong unlinkedKeys = new AtomicLong(0);
+    private volatile boolean running;
+    private volatile Instant lastStarted;
+    private volatile Instant lastFinished;
+
+    @Value("${bot.cache.reaper.batch-size:500}")
+    private int batchSize;
+
+    public CacheReaper(RedisTemplate<String, Object> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * Schedule reclamation of every generation older than the given one.
+     * Requests made while a run is pending are merged into it.
+     *
+     * @param currentGeneration the generation that is now live
+     */
+    public void reclaim(long currentGeneration) {
+        targetGeneration.accumulateAndGet(currentGeneration, Math::max);
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(this::run);
+        }
+    }
+
+    /**
+     * Get the progress of the current or last run.
+     *
+     * @return the reaper status
+     */
+    public Status getStatus() {
+        return new Status(running, targetGeneration.get(), scannedKeys.get(), unlinkedKeys.get(), lastStarted, lastFinished);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run() {
+        scheduled.set(false);
+        running = true;
+        lastStarted = Instant.now();
+        scannedKeys.set(0);
+        unlinkedKeys.set(0);
+        log.info("Reclaiming cached responses older than generation {}", targetGeneration.get());
+
+        ScanOptions options = ScanOptions.scanOptions()
+                .match(CacheService.CACHE_KEY_PREFIX + "*")
+                .count(batchSize)
+                .build();
+        List<String> batch = new ArrayList<>(batchSize);
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (cursor.hasNext() && !Thread.currentThread().isInterrupted()) {
+                String key = cursor.next();
+                scannedKeys.incrementAndGet();
+                // Re-read the target on every key so a newer generation is never reclaimed
+                if (CacheService.generationOf(key) < targetGeneration.get()) {
+                    batch.add(key);
+                }
+                if (batch.size() >= batchSize) {
+                    unlink(batch);
+                }
+            }
+            unlink(batch);
+        } catch (Exception e) {
+            log.error("Error reclaiming cached responses", e);
+        } finally {
+            running = false;
+            lastFinished = Instant.now();
+            log.info("Reclaimed {} of {} scanned cached responses", unlinkedKeys.get(), scannedKeys.get());
+        }
+    }
+
+    private void unlink(List<String> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Long unlinked = redisTemplate.unlink(batch);
+        unlinkedKeys.addAndGet(unlinked == null ? 0 : unlinked);
+        batch.clear();
+    }
+
+    /**
+     * Progress of the cache reaper.
+     *
+     * @param running         whether a run is in progress
+     * @param generation      the live generation; older ones are reclaimed
+     * @param scannedKeys     keys scanned by the current or last run
+     * @param unlinkedKeys    keys unlinked by the current or last run
+     * @param lastStarted     when the current or last run started
+     * @param lastFinished    when the last run finished
+     */
+    public record Status(
+            boolean running,
+            long generation,
+            long scannedKeys,
+            long unlinkedKeys,
+            Instant lastStarted,
+            Instant lastFinished
+    ) {
+    }
+}
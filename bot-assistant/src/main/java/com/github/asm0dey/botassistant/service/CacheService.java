@@ -16,34 +16,139 @@
 package com.github.asm0dey.botassistant.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.asm0dey.botassistant.model.CachedResponse;
 import com.github.asm0dey.botassistant.model.ChatMessage;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * Redis implementation of the CacheService.
+ * Two-tier implementation of the CacheService.
+ * <p>
+ * Responses are looked up in a bounded in-process Caffeine cache (L1, W-TinyLFU admission) first,
+ * and in Redis (L2) on an L1 miss. L1 entries are invalidated across replicas through a Redis pub/sub channel.
+ * <p>
+ * Entries are keyed by a SHA-256 digest of the normalized prompt and store the prompt next to the response,
+ * so a lookup can verify it found the right entry.
+ * <p>
+ * Keys also carry a cache generation. Clearing the cache bumps the generation, which makes every existing
+ * entry unreachable at once; the {@link CacheReaper} reclaims the old entries in the background.
+ * <p>
+ * When the {@link SemanticCache} is enabled, it is consulted after both exact-match tiers miss.
+ * <p>
+ * Every lookup also counts the normalized prompt in memory; the counts are added to the
+ * {@value #PROMPT_FREQUENCY_KEY} sorted set in one pipeline per flush, so an L1 hit never waits on
+ * or writes to Redis. The {@link CacheWarmer} reads the set to preload the most requested prompts at startup.
  */
 @Service
-public class CacheService {
+public class CacheService implements MessageListener {
     private static final Logger log = LoggerFactory.getLogger(CacheService.class);
 
-    private static final String CACHE_KEY_PREFIX = "bot:response:";
+    static final String CACHE_KEY_PREFIX = "bot:response:";
+    private static final String DIGEST_KEY_PREFIX = CACHE_KEY_PREFIX + "v2:";
+    private static final String GENERATION_KEY = "bot:cache:generation";
+    static final String PROMPT_FREQUENCY_KEY = "bot:prompt:frequency";
+    private static final int MAX_TRACKED_PROMPT_LENGTH = 2048;
+    private static final int MAX_PENDING_PROMPTS = 10_000;
     private static final long CACHE_TTL_HOURS = 24;
+    private static final Duration CACHE_TTL = Duration.ofHours(CACHE_TTL_HOURS);
+
+    static final String INVALIDATION_CHANNEL = "bot:cache:invalidate";
+    static final String INVALIDATE_ALL = "*";
+
+    private static final String TIER_L1 = "l1";
+    private static final String TIER_L2 = "l2";
+    private static final String TIER_SEMANTIC = "semantic";
 
     private final RedisTemplate<String, Object> redisTemplate;
+    private final ReactiveRedisTemplate<String, Object> reactiveRedisTemplate;
     private final ObjectMapper objectMapper;
+    private final CacheReaper cacheReaper;
+    private final SemanticCache semanticCache;
+    private final Cache<String, CachedResponse> localCache;
+    private final boolean legacyReadEnabled;
+    private final boolean frequencyTrackingEnabled;
     private final AtomicLong cacheHits = new AtomicLong(0);
     private final AtomicLong cacheMisses = new AtomicLong(0);
+    private final Map<String, LongAdder> pendingPromptCounts = new ConcurrentHashMap<>();
+    private volatile long generation;
+
+    private final Counter l1Hits;
+    private final Counter l1Misses;
+    private final Counter l2Hits;
+    private final Counter l2Misses;
+    private final Counter semanticHits;
+    private final Counter semanticMisses;
 
-    public CacheService(RedisTemplate<String, Object> redisTemplate, ObjectMapper objectMapper) {
+    public CacheService(RedisTemplate<String, Object> redisTemplate,
+                        ReactiveRedisTemplate<String, Object> reactiveRedisTemplate,
+                        ObjectMapper objectMapper,
+                        CacheReaper cacheReaper,
+                        ObjectProvider<SemanticCache> semanticCache,
+                        RedisMessageListenerContainer listenerContainer,
+                        MeterRegistry meterRegistry,
+                        @Value("${bot.cache.l1.maximum-size:10000}") long l1MaximumSize,
+                        @Value("${bot.cache.l1.expire-after-write:10m}") Duration l1ExpireAfterWrite,
+                        @Value("${bot.cache.legacy-read-enabled:true}") boolean legacyReadEnabled,
+                        @Value("${bot.warmup.track-frequency:true}") boolean frequencyTrackingEnabled) {
         this.redisTemplate = redisTemplate;
+        this.reactiveRedisTemplate = reactiveRedisTemplate;
         this.objectMapper = objectMapper;
+        this.cacheReaper = cacheReaper;
+        this.semanticCache = semanticCache.getIfAvailable();
+        this.legacyReadEnabled = legacyReadEnabled;
+        this.frequencyTrackingEnabled = frequencyTrackingEnabled;
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(l1MaximumSize)
+                .expireAfterWrite(l1ExpireAfterWrite)
+                .build();
+
+        this.l1Hits = tierCounter(meterRegistry, TIER_L1, "hit");
+        this.l1Misses = tierCounter(meterRegistry, TIER_L1, "miss");
+        this.l2Hits = tierCounter(meterRegistry, TIER_L2, "hit");
+        this.l2Misses = tierCounter(meterRegistry, TIER_L2, "miss");
+        this.semanticHits = tierCounter(meterRegistry, TIER_SEMANTIC, "hit");
+        this.semanticMisses = tierCounter(meterRegistry, TIER_SEMANTIC, "miss");
+        Gauge.builder("bot.cache.l1.size", localCache, Cache::estimatedSize)
+                .description("Number of responses held in the in-process L1 cache")
+                .register(meterRegistry);
+
+        listenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATION_CHANNEL));
+        refreshGeneration();
     }
 
     /**
@@ -53,28 +158,195 @@ public class CacheService {
      * @return an Optional containing the cached response if found
      */
     public Optional<ChatMessage> getCachedResponse(ChatMessage message) {
+        recordPromptRequest(message);
         String key = generateCacheKey(message);
         log.debug("Looking up cached response for key: {}", key);
 
-        Object cachedResponse = redisTemplate.opsForValue().get(key);
+        Optional<ChatMessage> localResponse = getLocalResponse(message, key, true);
+        if (localResponse.isPresent()) {
+            return localResponse;
+        }
 
-        if (cachedResponse == null) {
-            log.info("Cache miss for message: {}", message.content());
-            cacheMisses.incrementAndGet();
-            return Optional.empty();
+        Optional<CachedResponse> entry = readEntry(message, redisTemplate.opsForValue().get(key));
+        if (entry.isEmpty() && isLegacyReadEnabled()) {
+            entry = readLegacyEntry(message, redisTemplate.opsForValue().get(generateLegacyCacheKey(message)));
+            entry.ifPresent(legacyEntry -> migrateLegacyEntry(key, legacyEntry));
+        }
+        Optional<ChatMessage> response = recordL2Lookup(message, key, entry, true);
+        if (response.isEmpty()) {
+            response = getSemanticResponse(message, key, true);
         }
+        if (response.isEmpty()) {
+            recordMiss(message);
+        }
+        return response;
+    }
 
-        try {
-            ChatMessage chatMessage = objectMapper.readValue(cachedResponse.toString(), ChatMessage.class);
-            log.info("Cache hit for message: {}", message.content());
-            cacheHits.incrementAndGet();
-            return Optional.of(chatMessage);
-        } catch (Exception e) {
-            log.error("Error converting cached response to ChatMessage", e);
-            log.info("Cache miss for message: {}", message.content());
-            cacheMisses.incrementAndGet();
-            return Optional.empty();
+    /**
+     * Get a cached response for a message without blocking the calling thread.
+     * The lookup goes through the reactive Lettuce API.
+     *
+     * @param message the message to get a response for
+     * @return a Mono emitting the cached response, or completing empty on a cache miss
+     */
+    public Mono<ChatMessage> getCachedResponseReactive(ChatMessage message) {
+        recordPromptRequest(message);
+        String key = generateCacheKey(message);
+        log.debug("Looking up cached response for key: {}", key);
+
+        Optional<ChatMessage> localResponse = getLocalResponse(message, key, true);
+        if (localResponse.isPresent()) {
+            return Mono.just(localResponse.get());
+        }
+
+        return completeLookupReactive(message, key, reactiveRedisTemplate.opsForValue().get(key)
+                .map(cachedResponse -> readEntry(message, cachedResponse))
+                .defaultIfEmpty(Optional.empty()));
+    }
+
+    /**
+     * Read the response stored under a message's own key without counting the lookup.
+     * Used by the {@link RequestCoalescer} to pick up a response another replica has just cached,
+     * so a coalesced request is not counted twice in the prompt frequencies and the hit ratio.
+     *
+     * @param message the message to get a response for
+     * @return a Mono emitting the cached response, or completing empty if none is stored yet
+     */
+    public Mono<ChatMessage> recheckCachedResponseReactive(ChatMessage message) {
+        String key = generateCacheKey(message);
+        CachedResponse localEntry = localCache.getIfPresent(key);
+        if (localEntry != null && PromptNormalizer.normalizedEquals(localEntry.prompt(), message.content())) {
+            return Mono.just(localEntry.response());
+        }
+
+        return reactiveRedisTemplate.opsForValue().get(key)
+                .flatMap(cachedResponse -> Mono.justOrEmpty(readEntry(message, cachedResponse)))
+                .doOnNext(entry -> localCache.put(key, entry))
+                .map(CachedResponse::response)
+                .onErrorResume(e -> {
+                    log.error("Error rechecking cached response", e);
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Get cached responses for several messages.
+     * Messages missing from L1 are looked up in Redis with a single {@code MGET},
+     * and legacy keys, when still read, with one more.
+     *
+     * @param messages the messages to get responses for
+     * @return one Optional per message, in the order of the messages
+     */
+    public List<Optional<ChatMessage>> getCachedResponses(List<ChatMessage> messages) {
+        messages.forEach(this::recordPromptRequest);
+        return lookupResponses(messages, true);
+    }
+
+    /**
+     * Load the responses for several messages into L1 without counting them as requested prompts.
+     * Used by the {@link CacheWarmer}, so warming up skews neither the prompt frequencies nor the hit ratio.
+     *
+     * @param messages the messages to load responses for
+     * @return one Optional per message, in the order of the messages
+     */
+    public List<Optional<ChatMessage>> preloadResponses(List<ChatMessage> messages) {
+        return lookupResponses(messages, false);
+    }
+
+    private List<Optional<ChatMessage>> lookupResponses(List<ChatMessage> messages, boolean counted) {
+        List<String> keys = messages.stream().map(this::generateCacheKey).toList();
+        List<Optional<ChatMessage>> responses = new ArrayList<>(messages.size());
+        List<Integer> misses = getLocalResponses(messages, keys, responses, counted);
+        if (misses.isEmpty()) {
+            return responses;
+        }
+
+        List<Optional<CachedResponse>> entries = new ArrayList<>(misses.size());
+        List<Object> values = multiGet(misses.stream().map(keys::get).toList());
+        for (int i = 0; i < misses.size(); i++) {
+            entries.add(readEntry(messages.get(misses.get(i)), values.get(i)));
+        }
+
+        if (isLegacyReadEnabled()) {
+            List<Integer> legacyMisses = new ArrayList<>();
+            for (int i = 0; i < misses.size(); i++) {
+                if (entries.get(i).isEmpty()) {
+                    legacyMisses.add(i);
+                }
+            }
+            if (!legacyMisses.isEmpty()) {
+                List<Object> legacyValues = multiGet(legacyMisses.stream()
+                        .map(i -> generateLegacyCacheKey(messages.get(misses.get(i))))
+                        .toList());
+                Map<String, CachedResponse> migrated = new LinkedHashMap<>();
+                for (int j = 0; j < legacyMisses.size(); j++) {
+                    int i = legacyMisses.get(j);
+                    Optional<CachedResponse> legacyEntry = readLegacyEntry(messages.get(misses.get(i)), legacyValues.get(j));
+                    legacyEntry.ifPresent(entry -> migrated.put(keys.get(misses.get(i)), entry));
+                    entries.set(i, legacyEntry);
+                }
+                writeEntries(migrated);
+            }
+        }
+
+        for (int i = 0; i < misses.size(); i++) {
+            int index = misses.get(i);
+            ChatMessage message = messages.get(index);
+            Optional<ChatMessage> response = recordL2Lookup(message, keys.get(index), entries.get(i), counted);
+            if (response.isEmpty()) {
+                response = getSemanticResponse(message, keys.get(index), counted);
+            }
+            if (response.isEmpty() && counted) {
+                recordMiss(message);
+            }
+            responses.set(index, response);
+        }
+        return responses;
+    }
+
+    /**
+     * Get cached responses for several messages without blocking the calling thread.
+     * Messages missing from L1 are looked up in Redis with a single {@code MGET},
+     * and legacy keys, when still read, with one more.
+     *
+     * @param messages the messages to get responses for
+     * @return a Mono emitting one Optional per message, in the order of the messages
+     */
+    public Mono<List<Optional<ChatMessage>>> getCachedResponsesReactive(List<ChatMessage> messages) {
+        messages.forEach(this::recordPromptRequest);
+        List<String> keys = messages.stream().map(this::generateCacheKey).toList();
+        List<Optional<ChatMessage>> responses = new ArrayList<>(messages.size());
+        List<Integer> misses = getLocalResponses(messages, keys, responses, true);
+        if (misses.isEmpty()) {
+            return Mono.just(responses);
         }
+
+        List<String> missingKeys = misses.stream().map(keys::get).toList();
+        log.debug("Looking up {} cached responses with MGET", missingKeys.size());
+        return multiGetReactive(missingKeys)
+                .flatMap(values -> {
+                    List<Optional<CachedResponse>> entries = new ArrayList<>(misses.size());
+                    for (int i = 0; i < misses.size(); i++) {
+                        entries.add(readEntry(messages.get(misses.get(i)), values.get(i)));
+                    }
+                    return isLegacyReadEnabled()
+                            ? readLegacyEntriesReactive(messages, keys, misses, entries)
+                            : Mono.just(entries);
+                })
+                .flatMapMany(entries -> Flux.range(0, misses.size())
+                        .flatMapSequential(i -> {
+                            int index = misses.get(i);
+                            return resolveLookupReactive(messages.get(index), keys.get(index), entries.get(i))
+                                    .map(Optional::of)
+                                    .defaultIfEmpty(Optional.empty());
+                        }))
+                .collectList()
+                .map(resolved -> {
+                    for (int i = 0; i < misses.size(); i++) {
+                        responses.set(misses.get(i), resolved.get(i));
+                    }
+                    return responses;
+                });
     }
 
     /**
@@ -88,22 +360,86 @@ public class CacheService {
         log.debug("Caching response for key: {}", key);
 
         try {
-            // Serialize the response to a JSON string
-            String jsonResponse = objectMapper.writeValueAsString(response);
+            // Serialize the prompt and response to a JSON string
+            CachedResponse entry = new CachedResponse(message.content(), response);
+            String jsonResponse = objectMapper.writeValueAsString(entry);
             redisTemplate.opsForValue().set(key, jsonResponse, CACHE_TTL_HOURS, TimeUnit.HOURS);
+            localCache.put(key, entry);
             log.info("Cached response for message: {}", message.content());
         } catch (Exception e) {
             log.error("Error caching response", e);
         }
+
+        if (semanticCache != null) {
+            semanticCache.add(message, response, generation);
+        }
+    }
+
+    /**
+     * Cache responses for several messages.
+     * All entries are written in one pipelined round trip of {@code SET ... EX} commands.
+     *
+     * @param responses the responses to cache, keyed by the message they answer
+     */
+    public void cacheResponses(Map<ChatMessage, ChatMessage> responses) {
+        Map<String, CachedResponse> entries = new LinkedHashMap<>();
+        responses.forEach((message, response) ->
+                entries.put(generateCacheKey(message), new CachedResponse(message.content(), response)));
+        log.debug("Caching {} responses", entries.size());
+
+        if (writeEntries(entries)) {
+            localCache.putAll(entries);
+            log.info("Cached {} responses", entries.size());
+        }
+
+        if (semanticCache != null) {
+            long currentGeneration = generation;
+            responses.forEach((message, response) -> semanticCache.add(message, response, currentGeneration));
+        }
+    }
+
+    /**
+     * Cache a response for a message without blocking the calling thread.
+     * Errors are logged and swallowed, as with {@link #cacheResponse(ChatMessage, ChatMessage)}.
+     *
+     * @param message  the message
+     * @param response the response to cache
+     * @return a Mono completing once the response is written
+     */
+    public Mono<Void> cacheResponseReactive(ChatMessage message, ChatMessage response) {
+        String key = generateCacheKey(message);
+        log.debug("Caching response for key: {}", key);
+
+        CachedResponse entry = new CachedResponse(message.content(), response);
+        return Mono.fromCallable(() -> objectMapper.writeValueAsString(entry))
+                .flatMap(jsonResponse -> reactiveRedisTemplate.opsForValue().set(key, jsonResponse, CACHE_TTL))
+                .doOnSuccess(ignored -> {
+                    localCache.put(key, entry);
+                    log.info("Cached response for message: {}", message.content());
+                })
+                .onErrorResume(e -> {
+                    log.error("Error caching response", e);
+                    return Mono.empty();
+                })
+                .then(indexSemanticallyReactive(message, response));
     }
 
     /**
      * Clear the cache.
+     * Bumping the generation hides every existing entry in O(1); the old entries are reclaimed in the background.
+     * The local L1 is cleared immediately; other replicas clear theirs when the invalidation is published.
      */
     public void clearCache() {
         log.info("Clearing cache");
-        // Get all keys with the prefix
-        redisTemplate.keys(CACHE_KEY_PREFIX + "*").forEach(redisTemplate::delete);
+        Long newGeneration = redisTemplate.opsForValue().increment(GENERATION_KEY);
+        generation = newGeneration == null ? generation + 1 : newGeneration;
+
+        localCache.invalidateAll();
+        if (semanticCache != null) {
+            semanticCache.clear();
+        }
+        redisTemplate.convertAndSend(INVALIDATION_CHANNEL, INVALIDATE_ALL);
+        cacheReaper.reclaim(generation);
 
         // Reset statistics
         cacheHits.set(0);
@@ -126,17 +462,562 @@ public class CacheService {
         return (double) hits / total;
     }
 
+    /**
+     * Get the most frequently requested prompts, most frequent first.
+     *
+     * @param limit the maximum number of prompts
+     * @return the normalized prompts
+     */
+    public List<String> getTopPrompts(int limit) {
+        flushPromptFrequencies();
+        Set<Object> prompts = redisTemplate.opsForZSet().reverseRange(PROMPT_FREQUENCY_KEY, 0, limit - 1L);
+        return prompts == null ? List.of() : prompts.stream().map(Object::toString).toList();
+    }
+
+    /**
+     * Add the prompt requests counted since the last flush to the frequency set, in one pipeline.
+     * Counts that cannot be written are kept for the next flush.
+     */
+    public void flushPromptFrequencies() {
+        if (pendingPromptCounts.isEmpty()) {
+            return;
+        }
+        Map<String, Long> counts = new HashMap<>();
+        for (String prompt : List.copyOf(pendingPromptCounts.keySet())) {
+            LongAdder count = pendingPromptCounts.remove(prompt);
+            if (count != null) {
+                counts.put(prompt, count.sum());
+            }
+        }
+        try {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    ZSetOperations<String, Object> zSetOperations = (ZSetOperations<String, Object>) operations.opsForZSet();
+                    counts.forEach((prompt, count) -> zSetOperations.incrementScore(PROMPT_FREQUENCY_KEY, prompt, count));
+                    return null;
+                }
+            });
+            log.debug("Flushed frequencies of {} prompts", counts.size());
+        } catch (Exception e) {
+            log.warn("Error flushing frequencies of {} prompts, retrying on next flush: {}", counts.size(), e.getMessage());
+            counts.forEach((prompt, count) -> pendingPromptCounts.computeIfAbsent(prompt, p -> new LongAdder()).add(count));
+        }
+    }
+
+    /**
+     * Keep only the most frequently requested prompts in the frequency set.
+     *
+     * @param limit the number of prompts to keep
+     */
+    public void trimPromptFrequencies(int limit) {
+        redisTemplate.opsForZSet().removeRange(PROMPT_FREQUENCY_KEY, 0, -limit - 1L);
+    }
+
+    /**
+     * Get the entries the L1 cache considers hottest, for writing a warm-up snapshot.
+     *
+     * @param limit the maximum number of entries
+     * @return the entries, hottest first
+     */
+    public List<CachedResponse> getHottestEntries(int limit) {
+        return localCache.policy().eviction()
+                .map(eviction -> List.copyOf(eviction.hottest(limit).values()))
+                .orElseGet(List::of);
+    }
+
+    /**
+     * Handle an invalidation published by this or another replica.
+     *
+     * @param message the pub/sub message carrying a cache key, or {@code *} to invalidate everything
+     * @param pattern the pattern the message matched, unused
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Object key = redisTemplate.getValueSerializer().deserialize(message.getBody());
+        if (INVALIDATE_ALL.equals(key)) {
+            log.debug("Invalidating all L1 cache entries");
+            refreshGeneration();
+            localCache.invalidateAll();
+            if (semanticCache != null) {
+                semanticCache.clear();
+            }
+        } else if (key != null) {
+            log.debug("Invalidating L1 cache entry: {}", key);
+            localCache.invalidate(key.toString());
+        }
+    }
+
+    /**
+     * Look up a response in the in-process L1 cache and record the L1 hit or miss.
+     *
+     * @param message the message the lookup was made for
+     * @param key     the cache key
+     * @param counted whether the lookup counts towards the hit and miss statistics
+     * @return an Optional containing the cached response if found
+     */
+    private Optional<ChatMessage> getLocalResponse(ChatMessage message, String key, boolean counted) {
+        CachedResponse localEntry = localCache.getIfPresent(key);
+        if (localEntry == null || !PromptNormalizer.normalizedEquals(localEntry.prompt(), message.content())) {
+            if (counted) {
+                l1Misses.increment();
+            }
+            return Optional.empty();
+        }
+
+        log.info("L1 cache hit for message: {}", message.content());
+        if (counted) {
+            l1Hits.increment();
+            cacheHits.incrementAndGet();
+        }
+        return Optional.of(localEntry.response());
+    }
+
+    /**
+     * Record the outcome of a Redis lookup and promote a hit to L1.
+     *
+     * @param message the message the lookup was made for
+     * @param key     the cache key
+     * @param entry   the entry read from Redis, if any
+     * @param counted whether the lookup counts towards the hit and miss statistics
+     * @return an Optional containing the cached response if found
+     */
+    private Optional<ChatMessage> recordL2Lookup(ChatMessage message, String key, Optional<CachedResponse> entry,
+                                                 boolean counted) {
+        if (entry.isEmpty()) {
+            if (counted) {
+                l2Misses.increment();
+            }
+            return Optional.empty();
+        }
+
+        log.info("Cache hit for message: {}", message.content());
+        localCache.put(key, entry.get());
+        if (counted) {
+            l2Hits.increment();
+            cacheHits.incrementAndGet();
+        }
+        return Optional.of(entry.get().response());
+    }
+
+    /**
+     * Look up a response to a similar prompt in the semantic cache and promote a hit to L1 under this prompt's key.
+     *
+     * @param message the message the lookup was made for
+     * @param key     the cache key
+     * @param counted whether the lookup counts towards the hit and miss statistics
+     * @return an Optional containing the cached response if a similar prompt was found
+     */
+    private Optional<ChatMessage> getSemanticResponse(ChatMessage message, String key, boolean counted) {
+        if (semanticCache == null) {
+            return Optional.empty();
+        }
+
+        Optional<ChatMessage> response = semanticCache.findSimilar(message, generation);
+        if (response.isEmpty()) {
+            if (counted) {
+                semanticMisses.increment();
+            }
+            return Optional.empty();
+        }
+
+        localCache.put(key, new CachedResponse(message.content(), response.get()));
+        if (counted) {
+            semanticHits.increment();
+            cacheHits.incrementAndGet();
+        }
+        return response;
+    }
+
+    /**
+     * Finish a lookup once the Redis entry for the digest key is known:
+     * fall back to the legacy key, record the L2 outcome, then try the semantic cache.
+     *
+     * @param message    the message the lookup was made for
+     * @param key        the cache key
+     * @param redisEntry the entry read from Redis for the digest key
+     * @return a Mono emitting the cached response, or completing empty on a miss in every tier
+     */
+    private Mono<ChatMessage> completeLookupReactive(ChatMessage message, String key,
+                                                     Mono<Optional<CachedResponse>> redisEntry) {
+        return redisEntry
+                .flatMap(entry -> entry.isPresent() || !isLegacyReadEnabled()
+                        ? Mono.just(entry)
+                        : getLegacyEntryReactive(message, key))
+                .onErrorResume(e -> {
+                    log.error("Error looking up cached response", e);
+                    return Mono.just(Optional.empty());
+                })
+                .flatMap(entry -> resolveLookupReactive(message, key, entry));
+    }
+
+    /**
+     * Finish a lookup once the Redis entry is known: record the L2 outcome, then try the semantic cache.
+     *
+     * @param message the message the lookup was made for
+     * @param key     the cache key
+     * @param entry   the entry read from Redis, if any
+     * @return a Mono emitting the cached response, or completing empty on a miss in every tier
+     */
+    private Mono<ChatMessage> resolveLookupReactive(ChatMessage message, String key, Optional<CachedResponse> entry) {
+        return Mono.justOrEmpty(recordL2Lookup(message, key, entry, true))
+                .switchIfEmpty(getSemanticResponseReactive(message, key))
+                .switchIfEmpty(Mono.fromRunnable(() -> recordMiss(message)));
+    }
+
+    /**
+     * Fill the entries the digest keys missed from their legacy keys with one more {@code MGET},
+     * migrating the entries found in a single pipeline.
+     *
+     * @param messages the messages of the lookup
+     * @param keys     the cache key of each message
+     * @param misses   the indexes of the messages that missed L1
+     * @param entries  the entries read from the digest keys, one per L1 miss; updated in place
+     * @return a Mono emitting the entries
+     */
+    private Mono<List<Optional<CachedResponse>>> readLegacyEntriesReactive(List<ChatMessage> messages, List<String> keys,
+                                                                          List<Integer> misses,
+                                                                          List<Optional<CachedResponse>> entries) {
+        List<Integer> legacyMisses = new ArrayList<>();
+        for (int i = 0; i < misses.size(); i++) {
+            if (entries.get(i).isEmpty()) {
+                legacyMisses.add(i);
+            }
+        }
+        if (legacyMisses.isEmpty()) {
+            return Mono.just(entries);
+        }
+
+        List<String> legacyKeys = legacyMisses.stream()
+                .map(i -> generateLegacyCacheKey(messages.get(misses.get(i))))
+                .toList();
+        return multiGetReactive(legacyKeys).flatMap(legacyValues -> {
+            Map<String, CachedResponse> migrated = new LinkedHashMap<>();
+            for (int j = 0; j < legacyMisses.size(); j++) {
+                int i = legacyMisses.get(j);
+                Optional<CachedResponse> legacyEntry = readLegacyEntry(messages.get(misses.get(i)), legacyValues.get(j));
+                legacyEntry.ifPresent(entry -> migrated.put(keys.get(misses.get(i)), entry));
+                entries.set(i, legacyEntry);
+            }
+            if (migrated.isEmpty()) {
+                return Mono.just(entries);
+            }
+            return Mono.fromCallable(() -> writeEntries(migrated))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .thenReturn(entries);
+        });
+    }
+
+    /**
+     * Look up the semantic cache off the calling thread, since embedding a prompt may block.
+     *
+     * @param message the message the lookup was made for
+     * @param key     the cache key
+     * @return a Mono emitting the cached response if a similar prompt was found
+     */
+    private Mono<ChatMessage> getSemanticResponseReactive(ChatMessage message, String key) {
+        if (semanticCache == null) {
+            return Mono.empty();
+        }
+        return Mono.fromCallable(() -> getSemanticResponse(message, key, true))
+                .flatMap(Mono::justOrEmpty)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Add a response to the semantic cache off the calling thread, since embedding a prompt may block.
+     *
+     * @param message  the message
+     * @param response the response
+     * @return a Mono completing once the response is indexed
+     */
+    private Mono<Void> indexSemanticallyReactive(ChatMessage message, ChatMessage response) {
+        if (semanticCache == null) {
+            return Mono.empty();
+        }
+        long currentGeneration = generation;
+        return Mono.<Void>fromRunnable(() -> semanticCache.add(message, response, currentGeneration))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Record a lookup that missed every tier.
+     *
+     * @param message the message the lookup was made for
+     */
+    private void recordMiss(ChatMessage message) {
+        log.info("Cache miss for message: {}", message.content());
+        cacheMisses.incrementAndGet();
+    }
+
+    /**
+     * Convert a raw Redis value into a cache entry, verifying that it was stored for the same prompt.
+     *
+     * @param message        the message the lookup was made for
+     * @param cachedResponse the raw cached value, or null on a miss
+     * @return an Optional containing the entry if it could be read and matches the prompt
+     */
+    private Optional<CachedResponse> readEntry(ChatMessage message, Object cachedResponse) {
+        if (cachedResponse == null) {
+            return Optional.empty();
+        }
+
+        try {
+            CachedResponse entry = objectMapper.readValue(cachedResponse.toString(), CachedResponse.class);
+            if (!PromptNormalizer.normalizedEquals(entry.prompt(), message.content())) {
+                log.warn("Cache key collision for message: {}", message.content());
+                return Optional.empty();
+            }
+            return Optional.of(entry);
+        } catch (Exception e) {
+            log.error("Error converting cached response to ChatMessage", e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Convert a raw value stored under a legacy, content-based key into a cache entry.
+     *
+     * @param message        the message the lookup was made for
+     * @param cachedResponse the raw cached value, or null on a miss
+     * @return an Optional containing the entry if it could be read
+     */
+    private Optional<CachedResponse> readLegacyEntry(ChatMessage message, Object cachedResponse) {
+        if (cachedResponse == null) {
+            return Optional.empty();
+        }
+
+        try {
+            ChatMessage response = objectMapper.readValue(cachedResponse.toString(), ChatMessage.class);
+            return Optional.of(new CachedResponse(message.content(), response));
+        } catch (Exception e) {
+            log.error("Error converting legacy cached response to ChatMessage", e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Look up a legacy entry without blocking and copy it to its digest key.
+     *
+     * @param message the message the lookup was made for
+     * @param key     the digest cache key
+     * @return a Mono emitting the entry if one was found
+     */
+    private Mono<Optional<CachedResponse>> getLegacyEntryReactive(ChatMessage message, String key) {
+        return reactiveRedisTemplate.opsForValue().get(generateLegacyCacheKey(message))
+                .map(cachedResponse -> readLegacyEntry(message, cachedResponse))
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(entry -> entry
+                        .map(legacyEntry -> Mono.fromCallable(() -> objectMapper.writeValueAsString(legacyEntry))
+                                .flatMap(json -> reactiveRedisTemplate.opsForValue().set(key, json, CACHE_TTL))
+                                .onErrorResume(e -> {
+                                    log.error("Error migrating legacy cached response", e);
+                                    return Mono.just(false);
+                                })
+                                .thenReturn(entry))
+                        .orElseGet(() -> Mono.just(entry)));
+    }
+
+    /**
+     * Copy a legacy entry to its digest key. The legacy key is left to expire,
+     * so replicas that still use it keep working during a rolling upgrade.
+     *
+     * @param key   the digest cache key
+     * @param entry the entry read from the legacy key
+     */
+    private void migrateLegacyEntry(String key, CachedResponse entry) {
+        try {
+            redisTemplate.opsForValue().set(key, objectMapper.writeValueAsString(entry), CACHE_TTL_HOURS, TimeUnit.HOURS);
+        } catch (Exception e) {
+            log.error("Error migrating legacy cached response", e);
+        }
+    }
+
+    /**
+     * Count a request for a prompt in memory until the next {@link #flushPromptFrequencies() flush}.
+     * Prompts first seen once {@value #MAX_PENDING_PROMPTS} distinct prompts are pending are not counted.
+     *
+     * @param message the requested message
+     */
+    private void recordPromptRequest(ChatMessage message) {
+        if (!frequencyTrackingEnabled || message.content() == null
+                || message.content().length() > MAX_TRACKED_PROMPT_LENGTH) {
+            return;
+        }
+        String prompt = PromptNormalizer.normalize(message.content());
+        LongAdder count = pendingPromptCounts.get(prompt);
+        if (count == null) {
+            if (pendingPromptCounts.size() >= MAX_PENDING_PROMPTS) {
+                return;
+            }
+            count = pendingPromptCounts.computeIfAbsent(prompt, p -> new LongAdder());
+        }
+        count.increment();
+    }
+
+    /**
+     * Look up the L1 cache for each message.
+     *
+     * @param messages  the messages to look up
+     * @param keys      the cache key of each message
+     * @param responses filled with one Optional per message
+     * @param counted   whether the lookups count towards the hit and miss statistics
+     * @return the indexes of the messages that missed L1
+     */
+    private List<Integer> getLocalResponses(List<ChatMessage> messages, List<String> keys,
+                                            List<Optional<ChatMessage>> responses, boolean counted) {
+        List<Integer> misses = new ArrayList<>();
+        for (int i = 0; i < messages.size(); i++) {
+            Optional<ChatMessage> localResponse = getLocalResponse(messages.get(i), keys.get(i), counted);
+            responses.add(localResponse);
+            if (localResponse.isEmpty()) {
+                misses.add(i);
+            }
+        }
+        return misses;
+    }
+
+    /**
+     * Read several keys with one {@code MGET}, treating a failure as a miss for every key.
+     *
+     * @param keys the keys to read
+     * @return the values, with {@code null} for missing keys
+     */
+    private List<Object> multiGet(List<String> keys) {
+        try {
+            List<Object> values = redisTemplate.opsForValue().multiGet(keys);
+            if (values != null) {
+                return values;
+            }
+        } catch (Exception e) {
+            log.error("Error looking up cached responses", e);
+        }
+        return Collections.nCopies(keys.size(), null);
+    }
+
+    /**
+     * Read several keys with one reactive {@code MGET}, treating a failure as a miss for every key.
+     *
+     * @param keys the keys to read
+     * @return a Mono emitting the values, with {@code null} for missing keys
+     */
+    private Mono<List<Object>> multiGetReactive(List<String> keys) {
+        return reactiveRedisTemplate.opsForValue().multiGet(keys)
+                .onErrorResume(e -> {
+                    log.error("Error looking up cached responses", e);
+                    return Mono.just(Collections.nCopies(keys.size(), null));
+                });
+    }
+
+    /**
+     * Write cache entries in a single pipelined round trip.
+     *
+     * @param entries the entries to write, keyed by cache key
+     * @return whether the entries were written
+     */
+    private boolean writeEntries(Map<String, CachedResponse> entries) {
+        if (entries.isEmpty()) {
+            return true;
+        }
+        try {
+            Map<String, String> values = new LinkedHashMap<>();
+            for (Map.Entry<String, CachedResponse> entry : entries.entrySet()) {
+                values.put(entry.getKey(), objectMapper.writeValueAsString(entry.getValue()));
+            }
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    ValueOperations<String, Object> valueOperations = (ValueOperations<String, Object>) operations.opsForValue();
+                    values.forEach((key, value) -> valueOperations.set(key, value, CACHE_TTL));
+                    return null;
+                }
+            });
+            return true;
+        } catch (Exception e) {
+            log.error("Error caching {} responses", entries.size(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Legacy content-based keys only belong to generation 0; clearing the cache retires them.
+     */
+    private boolean isLegacyReadEnabled() {
+        return legacyReadEnabled && generation == 0;
+    }
+
+    /**
+     * Load the current cache generation from Redis.
+     */
+    private void refreshGeneration() {
+        try {
+            Object storedGeneration = redisTemplate.opsForValue().get(GENERATION_KEY);
+            generation = storedGeneration == null ? 0 : Long.parseLong(storedGeneration.toString());
+            log.debug("Cache generation is {}", generation);
+        } catch (Exception e) {
+            log.error("Error loading cache generation, keeping generation {}", generation, e);
+        }
+    }
+
+    private static Counter tierCounter(MeterRegistry meterRegistry, String tier, String result) {
+        return Counter.builder("bot.cache.requests")
+                .description("Response cache lookups per tier")
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
     /**
      * Generate a cache key for a message.
-     * We use a normalized version of the message content as the key.
+     * We use a fixed-size digest of the normalized message content as the key.
      *
      * @param message the message
      * @return the cache key
      */
     public String generateCacheKey(ChatMessage message) {
-        // Normalize the message content (lowercase, trim, remove extra spaces)
-        String normalizedContent = message.content().toLowerCase().trim().replaceAll("\\s+", " ");
-        return CACHE_KEY_PREFIX + normalizedContent;
+        long currentGeneration = generation;
+        String digest = PromptNormalizer.digest(message.content());
+        // Generation 0 keeps the unprefixed form, so entries written before generations were introduced stay readable
+        return currentGeneration == 0
+                ? DIGEST_KEY_PREFIX + digest
+                : DIGEST_KEY_PREFIX + currentGeneration + ":" + digest;
+    }
+
+    /**
+     * Get the cache generation a key belongs to.
+     *
+     * @param key the cache key
+     * @return the generation, -1 for legacy content-based keys, or {@link Long#MAX_VALUE} for unrelated keys
+     */
+    static long generationOf(String key) {
+        if (!key.startsWith(CACHE_KEY_PREFIX)) {
+            return Long.MAX_VALUE;
+        }
+        if (!key.startsWith(DIGEST_KEY_PREFIX)) {
+            return -1;
+        }
+
+        int separator = key.indexOf(':', DIGEST_KEY_PREFIX.length());
+        if (separator < 0) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(key, DIGEST_KEY_PREFIX.length(), separator, 10);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Generate the content-based cache key used before keys were hashed.
+     *
+     * @param message the message
+     * @return the legacy cache key
+     */
+    private String generateLegacyCacheKey(ChatMessage message) {
+        return CACHE_KEY_PREFIX + PromptNormalizer.legacyNormalize(message.content());
     }
 
 }
@@ -0,0 +1,288 @@
+/*
+ * Copyright © 2025 BellSoft (info@bell-sw.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.asm0dey.botassistant.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.asm0dey.botassistant.model.CachedResponse;
+import com.github.asm0dey.botassistant.model.ChatMessage;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Preloads the response cache before the application reports itself ready.
+ * <p>
+ * Runs as an {@link ApplicationRunner}, so readiness only turns to {@code ACCEPTING_TRAFFIC} once it has finished.
+ * The prompts come either from the prompt frequency set {@link CacheService} keeps in Redis ({@code frequency})
+ * or from a local snapshot of the hottest L1 entries ({@code snapshot}), written at a fixed interval and on shutdown.
+ * A snapshot also restores responses Redis no longer has, so it survives a Redis flush.
+ */
+@Service
+public class CacheWarmer implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(CacheWarmer.class);
+
+    /**
+     * Where the prompts to warm up come from.
+     */
+    public enum Source {
+        FREQUENCY,
+        SNAPSHOT
+    }
+
+    private final CacheService cacheService;
+    private final ChatService chatService;
+    private final ObjectMapper objectMapper;
+    private final Timer warmupTimer;
+    private final boolean enabled;
+    private final Source source;
+    private final int topN;
+    private final int batchSize;
+    private final int trackedPrompts;
+    private final boolean generateMissing;
+    private final Duration timeout;
+    private final Path snapshotFile;
+    private final ScheduledExecutorService maintenanceExecutor;
+    private final AtomicInteger warmedEntries = new AtomicInteger();
+
+    public CacheWarmer(CacheService cacheService,
+                       ChatService chatService,
+                       ObjectMapper objectMapper,
+                       MeterRegistry meterRegistry,
+                       @Value("${bot.warmup.enabled:true}") boolean enabled,
+                       @Value("${bot.warmup.source:frequency}") Source source,
+                       @Value("${bot.warmup.top-n:1000}") int topN,
+                       @Value("${bot.warmup.batch-size:100}") int batchSize,
+                       @Value("${bot.warmup.tracked-prompts:10000}") int trackedPrompts,
+                       @Value("${bot.warmup.generate-missing:false}") boolean generateMissing,
+                       @Value("${bot.warmup.timeout:30s}") Duration timeout,
+                       @Value("${bot.warmup.snapshot-file:data/warmup-snapshot.jsonl}") Path snapshotFile,
+                       @Value("${bot.warmup.maintenance-interval:10m}") Duration maintenanceInterval,
+                       @Value("${bot.warmup.frequency-flush-interval:5s}") Duration frequencyFlushInterval) {
+        this.cacheService = cacheService;
+        this.chatService = chatService;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.source = source;
+        this.topN = topN;
+        this.batchSize = batchSize;
+        this.trackedPrompts = trackedPrompts;
+        this.generateMissing = generateMissing;
+        this.timeout = timeout;
+        this.snapshotFile = snapshotFile;
+        this.warmupTimer = Timer.builder("bot.warmup.duration")
+                .description("Time spent preloading the response cache at startup")
+                .tag("source", source.name().toLowerCase())
+                .register(meterRegistry);
+        Gauge.builder("bot.warmup.entries", warmedEntries, AtomicInteger::get)
+                .description("Responses preloaded by the last warm-up")
+                .register(meterRegistry);
+
+        if (maintenanceInterval.isPositive() || frequencyFlushInterval.isPositive()) {
+            maintenanceExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "bot-cache-warmer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            if (maintenanceInterval.isPositive()) {
+                maintenanceExecutor.scheduleWithFixedDelay(this::maintain,
+                        maintenanceInterval.toMillis(), maintenanceInterval.toMillis(), TimeUnit.MILLISECONDS);
+            }
+            if (frequencyFlushInterval.isPositive()) {
+                maintenanceExecutor.scheduleWithFixedDelay(this::flushPromptFrequencies,
+                        frequencyFlushInterval.toMillis(), frequencyFlushInterval.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        } else {
+            maintenanceExecutor = null;
+        }
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+
+        long started = System.nanoTime();
+        int warmed;
+        try {
+            warmed = source == Source.SNAPSHOT ? warmFromSnapshot() : warmFromFrequencies();
+        } catch (Exception e) {
+            // A failed warm-up only means a cold start, never a failed one
+            log.error("Error warming up the response cache from {}", source, e);
+            warmed = 0;
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+        warmupTimer.record(elapsed);
+        warmedEntries.set(warmed);
+        log.info("Warmed up {} cached responses from {} in {} ms", warmed, source, elapsed.toMillis());
+    }
+
+    /**
+     * Write the hottest L1 entries to the snapshot file. The file is replaced atomically.
+     */
+    public void saveSnapshot() {
+        List<CachedResponse> entries = cacheService.getHottestEntries(topN);
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        try {
+            Path parent = snapshotFile.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path tempFile = Files.createTempFile(parent, snapshotFile.getFileName().toString(), ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(tempFile)) {
+                for (CachedResponse entry : entries) {
+                    writer.write(objectMapper.writeValueAsString(entry));
+                    writer.newLine();
+                }
+            }
+            Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Saved {} warm-up entries to {}", entries.size(), snapshotFile);
+        } catch (IOException e) {
+            log.error("Error saving warm-up snapshot to {}", snapshotFile, e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (maintenanceExecutor != null) {
+            maintenanceExecutor.shutdownNow();
+        }
+        flushPromptFrequencies();
+        if (enabled && source == Source.SNAPSHOT) {
+            saveSnapshot();
+        }
+    }
+
+    private int warmFromFrequencies() {
+        List<String> prompts = cacheService.getTopPrompts(topN);
+        log.info("Warming up the response cache with the {} most requested prompts", prompts.size());
+        List<ChatMessage> messages = prompts.stream().map(CacheWarmer::promptMessage).toList();
+        return preload(messages, Map.of());
+    }
+
+    private int warmFromSnapshot() throws IOException {
+        if (!Files.exists(snapshotFile)) {
+            log.info("No warm-up snapshot at {}", snapshotFile);
+            return 0;
+        }
+
+        Map<String, CachedResponse> entries = new LinkedHashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(snapshotFile)) {
+            String line;
+            while ((line = reader.readLine()) != null && entries.size() < topN) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                CachedResponse entry = objectMapper.readValue(line, CachedResponse.class);
+                entries.putIfAbsent(entry.prompt(), entry);
+            }
+        }
+        log.info("Warming up the response cache with {} entries from {}", entries.size(), snapshotFile);
+        List<ChatMessage> messages = entries.keySet().stream().map(CacheWarmer::promptMessage).toList();
+        return preload(messages, entries);
+    }
+
+    /**
+     * Load the responses for the messages into L1, batch by batch, until the timeout runs out.
+     * Misses are restored from the snapshot entries when present, otherwise generated if enabled.
+     */
+    private int preload(List<ChatMessage> messages, Map<String, CachedResponse> snapshot) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        int warmed = 0;
+        for (int from = 0; from < messages.size(); from += batchSize) {
+            if (System.nanoTime() - deadline > 0) {
+                log.warn("Warm-up timed out after {} of {} prompts", from, messages.size());
+                break;
+            }
+
+            List<ChatMessage> batch = messages.subList(from, Math.min(from + batchSize, messages.size()));
+            List<Optional<ChatMessage>> responses = cacheService.preloadResponses(batch);
+            Map<ChatMessage, ChatMessage> restored = new LinkedHashMap<>();
+            List<ChatMessage> missing = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                ChatMessage message = batch.get(i);
+                if (responses.get(i).isPresent()) {
+                    warmed++;
+                } else if (snapshot.containsKey(message.content())) {
+                    restored.put(message, snapshot.get(message.content()).response());
+                } else {
+                    missing.add(message);
+                }
+            }
+
+            if (!restored.isEmpty()) {
+                cacheService.cacheResponses(restored);
+                warmed += restored.size();
+            }
+            Duration remaining = Duration.ofNanos(deadline - System.nanoTime());
+            if (generateMissing && !missing.isEmpty() && remaining.isPositive()) {
+                List<ChatMessage> generated = chatService.generateMissingReactive(missing).block(remaining);
+                warmed += generated == null ? 0 : generated.size();
+            }
+        }
+        return warmed;
+    }
+
+    private void flushPromptFrequencies() {
+        try {
+            cacheService.flushPromptFrequencies();
+        } catch (Exception e) {
+            log.error("Error flushing prompt frequencies", e);
+        }
+    }
+
+    private void maintain() {
+        try {
+            cacheService.trimPromptFrequencies(trackedPrompts);
+            if (enabled && source == Source.SNAPSHOT) {
+                saveSnapshot();
+            }
+        } catch (Exception e) {
+            log.error("Error maintaining warm-up data", e);
+        }
+    }
+
+    private static ChatMessage promptMessage(String prompt) {
+        return new ChatMessage(null, null, "warmup", "Cache Warmer", ChatMessage.MessageType.CHAT,
+                prompt, LocalDateTime.now(), false);
+    }
+}
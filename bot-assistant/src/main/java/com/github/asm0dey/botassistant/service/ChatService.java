@@ -15,14 +15,20 @@
  */
 package com.github.asm0dey.botassistant.service;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.asm0dey.botassistant.model.ChatMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
 import java.util.*;
@@ -35,9 +41,26 @@ import java.util.concurrent.atomic.AtomicLong;
 public class ChatService {
     private static final Logger log = LoggerFactory.getLogger(ChatService.class);
     public static final String CONTENT_KEY = "content";
+    /**
+     * Server-Sent Event name for an incremental piece of a streamed response.
+     */
+    public static final String DELTA_EVENT = "delta";
+    /**
+     * Server-Sent Event name for the final, complete response of a stream.
+     */
+    public static final String COMPLETE_EVENT = "complete";
+    private static final String STREAM_DONE = "[DONE]";
+    private static final String EMPTY_RESPONSE = "I'm sorry, I couldn't generate a proper response.";
+    private static final ParameterizedTypeReference<ServerSentEvent<String>> SSE_STRING_TYPE = new ParameterizedTypeReference<>() {
+    };
+    private static final TypeReference<Map<String, Object>> CHUNK_TYPE = new TypeReference<>() {
+    };
 
-    private final WebClient.Builder webClientBuilder;
+    private final WebClient openAiWebClient;
     private final CacheService cacheService;
+    private final RequestCoalescer requestCoalescer;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final ObjectMapper objectMapper;
     private final AtomicLong totalRequests = new AtomicLong(0);
     private final AtomicLong aiRequests = new AtomicLong(0);
     private final AtomicLong errorCount = new AtomicLong(0);
@@ -58,106 +81,309 @@ public class ChatService {
     private final Random random = new Random();
     @Value("${spring.ai.openai.api-key}")
     private String openaiApiKey;
-    @Value("${spring.ai.openai.base-url:https://api.openai.com}")
-    private String openaiBaseUrl;
     @Value("${spring.ai.openai.model:gpt-3.5-turbo}")
     private String model;
     @Value("${bot.system-prompt:You are a helpful assistant that provides concise and accurate information.}")
     private String systemPrompt;
 
-    public ChatService(WebClient.Builder webClientBuilder, CacheService cacheService) {
-        this.webClientBuilder = webClientBuilder;
+    public ChatService(WebClient openAiWebClient, CacheService cacheService, RequestCoalescer requestCoalescer,
+                       AdaptiveConcurrencyLimiter concurrencyLimiter, ObjectMapper objectMapper) {
+        this.openAiWebClient = openAiWebClient;
         this.cacheService = cacheService;
+        this.requestCoalescer = requestCoalescer;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.objectMapper = objectMapper;
     }
 
     /**
      * Process a chat message and generate a response.
+     * Blocks the calling thread until the response is available; prefer
+     * {@link #processMessageReactive(ChatMessage)} on request-handling threads.
      *
      * @param message the message to process
      * @return the generated response
      */
-    @SuppressWarnings("unchecked")
     public ChatMessage processMessage(ChatMessage message) {
-        log.info("Processing message: {}", message.content());
-        totalRequests.incrementAndGet();
-
-        // Check cache first
-        Optional<ChatMessage> cachedResponse = cacheService.getCachedResponse(message);
-        if (cachedResponse.isPresent()) {
-            log.info("Using cached response for message: {}", message.content());
-            return cachedResponse.get();
+        return processMessageReactive(message).block();
+    }
+
+    /**
+     * Process a chat message and generate a response without blocking.
+     * Both the cache lookup and the OpenAI call are non-blocking, so no thread
+     * is held while waiting for Redis or the model. Concurrent cache misses for the
+     * same prompt share a single OpenAI call.
+     *
+     * @param message the message to process
+     * @return a Mono emitting the generated response
+     */
+    public Mono<ChatMessage> processMessageReactive(ChatMessage message) {
+        return Mono.defer(() -> {
+            log.info("Processing message: {}", message.content());
+            totalRequests.incrementAndGet();
+
+            // Check cache first
+            return cacheService.getCachedResponseReactive(message)
+                    .doOnNext(cachedResponse -> log.info("Using cached response for message: {}", message.content()))
+                    .switchIfEmpty(Mono.defer(() -> requestCoalescer.coalesce(
+                            cacheService.generateCacheKey(message),
+                            () -> cacheService.recheckCachedResponseReactive(message),
+                            () -> generateResponse(message))))
+                    // Cached and coalesced responses belong to another request; address this one
+                    .map(shared -> createBotResponse(message, shared.content()));
+        });
+    }
+
+    /**
+     * Process several chat messages and generate their responses without blocking.
+     * Cache hits are resolved with one bulk lookup; misses are generated concurrently,
+     * each going through the same coalescing and concurrency limit as a single message.
+     *
+     * @param messages the messages to process
+     * @return a Mono emitting the responses, in the order of the messages
+     */
+    public Mono<List<ChatMessage>> processMessagesReactive(List<ChatMessage> messages) {
+        return Mono.defer(() -> {
+            log.info("Processing batch of {} messages", messages.size());
+            totalRequests.addAndGet(messages.size());
+
+            return cacheService.getCachedResponsesReactive(messages)
+                    .flatMapMany(cached -> Flux.range(0, messages.size())
+                            .flatMapSequential(i -> {
+                                ChatMessage message = messages.get(i);
+                                return cached.get(i)
+                                        .map(Mono::just)
+                                        .orElseGet(() -> requestCoalescer.coalesce(
+                                                cacheService.generateCacheKey(message),
+                                                () -> cacheService.recheckCachedResponseReactive(message),
+                                                () -> generateResponse(message)))
+                                        .map(shared -> createBotResponse(message, shared.content()));
+                            }))
+                    .collectList();
+        });
+    }
+
+    /**
+     * Generate and cache responses for prompts the cache is known to miss, without counting them
+     * as requests. Used by the {@link CacheWarmer}, so warming up does not skew the request count,
+     * the prompt frequencies or the hit ratio.
+     *
+     * @param messages the messages to generate responses for
+     * @return a Mono emitting the responses, in the order of the messages
+     */
+    public Mono<List<ChatMessage>> generateMissingReactive(List<ChatMessage> messages) {
+        return Flux.fromIterable(messages)
+                .flatMapSequential(message -> requestCoalescer.coalesce(
+                        cacheService.generateCacheKey(message),
+                        () -> cacheService.recheckCachedResponseReactive(message),
+                        () -> generateResponse(message)))
+                .collectList();
+    }
+
+    /**
+     * Process a chat message and stream the response as Server-Sent Events.
+     * Each piece of generated text is emitted as a {@value #DELTA_EVENT} event as soon as
+     * OpenAI produces it; the stream always ends with a single {@value #COMPLETE_EVENT}
+     * event carrying the full response. Cached and fallback responses are emitted as a
+     * {@value #COMPLETE_EVENT} event only.
+     *
+     * @param message the message to process
+     * @return a Flux of response events
+     */
+    public Flux<ServerSentEvent<ChatMessage>> streamMessage(ChatMessage message) {
+        return Flux.defer(() -> {
+            log.info("Streaming response for message: {}", message.content());
+            totalRequests.incrementAndGet();
+
+            // Check cache first
+            return cacheService.getCachedResponseReactive(message)
+                    .doOnNext(cachedResponse -> log.info("Using cached response for message: {}", message.content()))
+                    .map(cachedResponse -> completeEvent(createBotResponse(message, cachedResponse.content())))
+                    .flux()
+                    .switchIfEmpty(Flux.defer(() -> streamResponse(message)));
+        });
+    }
+
+    /**
+     * Generate a response using the OpenAI API and cache it.
+     *
+     * @param message the message to respond to
+     * @return a Mono emitting the generated response, or a fallback response on error
+     */
+    private Mono<ChatMessage> generateResponse(ChatMessage message) {
+        if (isApiKeyUnavailable()) {
+            log.warn("OpenAI API key is not available. Using preprogrammed answer.");
+            errorCount.incrementAndGet();
+            return Mono.just(createBotResponse(message, getRandomPreprogrammedAnswer()));
         }
 
-        // Check if OpenAI API key is available
-        if (openaiApiKey == null || openaiApiKey.isEmpty() || openaiApiKey.equals("your-api-key-here")) {
+        // Generate response using OpenAI API, within the upstream concurrency limit
+        return concurrencyLimiter.execute(() -> {
+                    aiRequests.incrementAndGet();
+                    return openAiWebClient.post()
+                            .uri("/v1/chat/completions")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .bodyValue(createRequestBody(message, false))
+                            .retrieve()
+                            .bodyToMono(Map.class);
+                })
+                .map(response -> {
+                    // Extract response content
+                    String content = extractContentFromResponse(response);
+                    recordTokenUsage(response);
+
+                    // Create bot response
+                    return createBotResponse(message, content);
+                })
+                // Cache the response, unless nothing could be extracted from it
+                .flatMap(botResponse -> EMPTY_RESPONSE.equals(botResponse.content())
+                        ? Mono.just(botResponse)
+                        : cacheService.cacheResponseReactive(message, botResponse).thenReturn(botResponse))
+                .doOnNext(botResponse -> log.info("Generated AI response for message: {}", message.content()))
+                .onErrorResume(e -> Mono.just(createFallbackResponse(message, e)));
+    }
+
+    /**
+     * Stream a response from the OpenAI API, then cache the assembled response.
+     *
+     * @param message the message to respond to
+     * @return a Flux of delta events followed by a single complete event
+     */
+    private Flux<ServerSentEvent<ChatMessage>> streamResponse(ChatMessage message) {
+        if (isApiKeyUnavailable()) {
             log.warn("OpenAI API key is not available. Using preprogrammed answer.");
             errorCount.incrementAndGet();
-            return createBotResponse(message, getRandomPreprogrammedAnswer());
+            return Flux.just(completeEvent(createBotResponse(message, getRandomPreprogrammedAnswer())));
         }
 
-        // Generate response using OpenAI API
-        try {
-            aiRequests.incrementAndGet();
-
-            // Create request body for OpenAI API
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("model", model);
-
-            // Create messages array
-            Map<String, String> systemMessage = new HashMap<>();
-            systemMessage.put("role", "system");
-            systemMessage.put(CONTENT_KEY, systemPrompt);
-
-            Map<String, String> userMessage = new HashMap<>();
-            userMessage.put("role", "user");
-            userMessage.put(CONTENT_KEY, message.content());
-
-            requestBody.put("messages", List.of(systemMessage, userMessage));
-
-            // Call OpenAI API
-            WebClient client = webClientBuilder
-                    .baseUrl(openaiBaseUrl)
-                    .defaultHeader("Authorization", "Bearer " + openaiApiKey)
-                    .build();
-
-            Map<String, Object> response = client.post()
-                    .uri("/v1/chat/completions")
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .bodyValue(requestBody)
-                    .retrieve()
-                    .bodyToMono(Map.class)
-                    .block();
-
-            // Extract response content
-            String content = extractContentFromResponse(response);
-
-            // Update token count if available
-            if (Objects.requireNonNull(response).containsKey("usage")) {
-                Map<String, Object> usage = (Map<String, Object>) response.get("usage");
-                if (usage.containsKey("total_tokens")) {
-                    totalTokens.addAndGet(((Number) usage.get("total_tokens")).longValue());
-                }
+        StringBuilder content = new StringBuilder();
+
+        Flux<ServerSentEvent<ChatMessage>> deltas = concurrencyLimiter.executeMany(() -> {
+                    aiRequests.incrementAndGet();
+                    return openAiWebClient.post()
+                            .uri("/v1/chat/completions")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .accept(MediaType.TEXT_EVENT_STREAM)
+                            .bodyValue(createRequestBody(message, true))
+                            .retrieve()
+                            .bodyToFlux(SSE_STRING_TYPE);
+                })
+                .<String>handle((event, sink) -> {
+                    if (event.data() != null) {
+                        sink.next(event.data());
+                    }
+                })
+                .takeWhile(data -> !STREAM_DONE.equals(data))
+                .<String>handle((data, sink) -> {
+                    String delta = extractDeltaFromChunk(data);
+                    if (delta != null && !delta.isEmpty()) {
+                        sink.next(delta);
+                    }
+                })
+                .doOnNext(content::append)
+                .map(delta -> ServerSentEvent.builder(createBotResponse(message, delta))
+                        .event(DELTA_EVENT)
+                        .build());
+
+        Mono<ServerSentEvent<ChatMessage>> complete = Mono.defer(() -> {
+            if (content.isEmpty()) {
+                // Nothing was generated; answer with the fallback but keep it out of the cache
+                log.warn("Streamed AI response was empty for message: {}", message.content());
+                return Mono.just(completeEvent(createBotResponse(message, EMPTY_RESPONSE)));
             }
+            ChatMessage botResponse = createBotResponse(message, content.toString());
+            log.info("Streamed AI response for message: {}", message.content());
+            return cacheService.cacheResponseReactive(message, botResponse).thenReturn(completeEvent(botResponse));
+        });
 
-            // Create bot response
-            ChatMessage botResponse = createBotResponse(message, content);
+        return deltas.concatWith(complete)
+                .onErrorResume(e -> Flux.just(completeEvent(createFallbackResponse(message, e))));
+    }
 
-            // Cache the response
-            cacheService.cacheResponse(message, botResponse);
+    /**
+     * Check whether a usable OpenAI API key is configured.
+     *
+     * @return true if no API key is available
+     */
+    private boolean isApiKeyUnavailable() {
+        return openaiApiKey == null || openaiApiKey.isEmpty() || openaiApiKey.equals("your-api-key-here");
+    }
 
-            log.info("Generated AI response for message: {}", message.content());
-            return botResponse;
-        } catch (WebClientResponseException.Unauthorized e) {
+    /**
+     * Create a fallback response for a failed OpenAI call.
+     *
+     * @param message the original message
+     * @param e       the failure
+     * @return the fallback response
+     */
+    private ChatMessage createFallbackResponse(ChatMessage message, Throwable e) {
+        errorCount.incrementAndGet();
+        if (e instanceof WebClientResponseException.Unauthorized) {
             // This exception is thrown when the API key is invalid
             log.error("Unauthorized: Invalid OpenAI API key", e);
-            errorCount.incrementAndGet();
             return createBotResponse(message, getRandomPreprogrammedAnswer());
-        } catch (Exception e) {
-            log.error("Error generating AI response", e);
-            errorCount.incrementAndGet();
+        }
+        if (e instanceof AdaptiveConcurrencyLimiter.LimitExceededException) {
+            // Shed load while OpenAI is slow instead of queueing behind it
+            log.warn("Rejected by the upstream concurrency limiter: {}", e.getMessage());
+            return createBotResponse(message, getRandomPreprogrammedAnswer());
+        }
+        log.error("Error generating AI response", e);
+        return createBotResponse(message, "I'm sorry, I'm having trouble processing your request right now. Please try again later.");
+    }
+
+    /**
+     * Wrap a full response into the final event of a stream.
+     *
+     * @param response the complete response
+     * @return the complete event
+     */
+    private ServerSentEvent<ChatMessage> completeEvent(ChatMessage response) {
+        return ServerSentEvent.builder(response)
+                .event(COMPLETE_EVENT)
+                .build();
+    }
+
+    /**
+     * Create the request body for the OpenAI chat completions API.
+     *
+     * @param message the user message
+     * @param stream  whether the response should be streamed
+     * @return the request body
+     */
+    private Map<String, Object> createRequestBody(ChatMessage message, boolean stream) {
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", model);
+        if (stream) {
+            requestBody.put("stream", true);
+            // Ask for a final chunk with token usage so streamed requests are counted too
+            requestBody.put("stream_options", Map.of("include_usage", true));
+        }
+
+        // Create messages array
+        Map<String, String> systemMessage = new HashMap<>();
+        systemMessage.put("role", "system");
+        systemMessage.put(CONTENT_KEY, systemPrompt);
+
+        Map<String, String> userMessage = new HashMap<>();
+        userMessage.put("role", "user");
+        userMessage.put(CONTENT_KEY, message.content());
 
-            // Create fallback response
-            return createBotResponse(message, "I'm sorry, I'm having trouble processing your request right now. Please try again later.");
+        requestBody.put("messages", List.of(systemMessage, userMessage));
+        return requestBody;
+    }
+
+    /**
+     * Update the token count if the response reports usage.
+     *
+     * @param response the OpenAI API response
+     */
+    @SuppressWarnings("unchecked")
+    private void recordTokenUsage(Map<String, Object> response) {
+        if (response.get("usage") instanceof Map<?, ?>) {
+            Map<String, Object> usage = (Map<String, Object>) response.get("usage");
+            if (usage.containsKey("total_tokens")) {
+                totalTokens.addAndGet(((Number) usage.get("total_tokens")).longValue());
+            }
         }
     }
 
@@ -167,7 +393,8 @@ public class ChatService {
      * @param response the OpenAI API response
      * @return the extracted content
      */
-    private String extractContentFromResponse(Map<String, Object> response) {
+    @SuppressWarnings("unchecked")
+    static String extractContentFromResponse(Map<String, Object> response) {
         try {
             List<Map<String, Object>> choices = (List<Map<String, Object>>) response.get("choices");
             if (choices != null && !choices.isEmpty()) {
@@ -178,7 +405,32 @@ public class ChatService {
         } catch (Exception e) {
             log.error("Error extracting content from response", e);
         }
-        return "I'm sorry, I couldn't generate a proper response.";
+        return EMPTY_RESPONSE;
+    }
+
+    /**
+     * Extract the content delta from a streamed OpenAI chunk.
+     * Records token usage when the chunk carries it.
+     *
+     * @param data the JSON data of the chunk
+     * @return the content delta, or null if the chunk has none
+     */
+    @SuppressWarnings("unchecked")
+    private String extractDeltaFromChunk(String data) {
+        try {
+            Map<String, Object> chunk = objectMapper.readValue(data, CHUNK_TYPE);
+            recordTokenUsage(chunk);
+            List<Map<String, Object>> choices = (List<Map<String, Object>>) chunk.get("choices");
+            if (choices != null && !choices.isEmpty()) {
+                Map<String, Object> delta = (Map<String, Object>) choices.getFirst().get("delta");
+                if (delta != null) {
+                    return (String) delta.get(CONTENT_KEY);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error extracting content from stream chunk", e);
+        }
+        return null;
     }
 
     /**
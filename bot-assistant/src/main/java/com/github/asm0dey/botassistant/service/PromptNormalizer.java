@@ -0,0 +1,215 @@
+/*
+ * Copyright © 2025 BellSoft (info@bell-sw.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.asm0dey.botassistant.service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Normalizes prompts for caching: lowercase, trimmed, with whitespace runs collapsed to a single space.
+ * <p>
+ * Normalization, UTF-8 encoding and hashing happen in a single pass over the prompt,
+ * without building the normalized string.
+ */
+final class PromptNormalizer {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final int BUFFER_SIZE = 256;
+
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+
+    private PromptNormalizer() {
+    }
+
+    /**
+     * Compute the hex-encoded SHA-256 digest of the normalized prompt.
+     *
+     * @param prompt the prompt
+     * @return a 64 character hex digest
+     */
+    static String digest(String prompt) {
+        MessageDigest digest = DIGEST.get();
+        byte[] buffer = BUFFER.get();
+        int length = 0;
+
+        int end = trimmedEnd(prompt);
+        boolean pendingSpace = false;
+        for (int i = trimmedStart(prompt, end); i < end; i++) {
+            char c = prompt.charAt(i);
+            if (isWhitespace(c)) {
+                pendingSpace = true;
+                continue;
+            }
+            // Leave room for a pending space and a four byte code point
+            if (length > BUFFER_SIZE - 5) {
+                digest.update(buffer, 0, length);
+                length = 0;
+            }
+            if (pendingSpace) {
+                buffer[length++] = ' ';
+                pendingSpace = false;
+            }
+
+            int codePoint = c;
+            if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(prompt.charAt(i + 1))) {
+                codePoint = Character.toCodePoint(c, prompt.charAt(++i));
+            }
+            length = encodeUtf8(Character.toLowerCase(codePoint), buffer, length);
+        }
+        digest.update(buffer, 0, length);
+
+        byte[] hash = digest.digest();
+        char[] hex = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(hash[i] >> 4) & 0x0f];
+            hex[i * 2 + 1] = HEX_DIGITS[hash[i] & 0x0f];
+        }
+        return new String(hex);
+    }
+
+    /**
+     * Check whether two prompts are equal after normalization, without building either normalized string.
+     *
+     * @param first  the first prompt
+     * @param second the second prompt
+     * @return true if both prompts normalize to the same text
+     */
+    static boolean normalizedEquals(String first, String second) {
+        if (first == null || second == null) {
+            return first == second;
+        }
+
+        int firstEnd = trimmedEnd(first);
+        int secondEnd = trimmedEnd(second);
+        int i = trimmedStart(first, firstEnd);
+        int j = trimmedStart(second, secondEnd);
+
+        while (i < firstEnd && j < secondEnd) {
+            char a = first.charAt(i);
+            char b = second.charAt(j);
+            if (isWhitespace(a) || isWhitespace(b)) {
+                if (!isWhitespace(a) || !isWhitespace(b)) {
+                    return false;
+                }
+                i = skipWhitespace(first, i, firstEnd);
+                j = skipWhitespace(second, j, secondEnd);
+                continue;
+            }
+
+            int codePointA = first.codePointAt(i);
+            int codePointB = second.codePointAt(j);
+            if (Character.toLowerCase(codePointA) != Character.toLowerCase(codePointB)) {
+                return false;
+            }
+            i += Character.charCount(codePointA);
+            j += Character.charCount(codePointB);
+        }
+        return i == firstEnd && j == secondEnd;
+    }
+
+    /**
+     * Build the normalized prompt in a single pass.
+     *
+     * @param prompt the prompt
+     * @return the lowercase, trimmed prompt with whitespace runs collapsed
+     */
+    static String normalize(String prompt) {
+        int end = trimmedEnd(prompt);
+        int start = trimmedStart(prompt, end);
+        StringBuilder normalized = new StringBuilder(end - start);
+        boolean pendingSpace = false;
+        for (int i = start; i < end; i++) {
+            char c = prompt.charAt(i);
+            if (isWhitespace(c)) {
+                pendingSpace = true;
+                continue;
+            }
+            if (pendingSpace) {
+                normalized.append(' ');
+                pendingSpace = false;
+            }
+            normalized.append(Character.toLowerCase(c));
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Normalize a prompt the way cache keys were built before they were hashed.
+     *
+     * @param prompt the prompt
+     * @return the lowercase, trimmed prompt with whitespace runs collapsed
+     */
+    static String legacyNormalize(String prompt) {
+        return prompt.toLowerCase().trim().replaceAll("\\s+", " ");
+    }
+
+    private static int trimmedStart(String s, int end) {
+        int start = 0;
+        while (start < end && isWhitespace(s.charAt(start))) {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimmedEnd(String s) {
+        int end = s.length();
+        while (end > 0 && isWhitespace(s.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+    private static int skipWhitespace(String s, int index, int end) {
+        while (index < end && isWhitespace(s.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * The same character class as the regex {@code \s}.
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static int encodeUtf8(int codePoint, byte[] buffer, int offset) {
+        if (codePoint < 0x80) {
+            buffer[offset++] = (byte) codePoint;
+        } else if (codePoint < 0x800) {
+            buffer[offset++] = (byte) (0xc0 | (codePoint >> 6));
+            buffer[offset++] = (byte) (0x80 | (codePoint & 0x3f));
+        } else if (codePoint < 0x10000) {
+            buffer[offset++] = (byte) (0xe0 | (codePoint >> 12));
+            buffer[offset++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+            buffer[offset++] = (byte) (0x80 | (codePoint & 0x3f));
+        } else {
+            buffer[offset++] = (byte) (0xf0 | (codePoint >> 18));
+            buffer[offset++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+            buffer[offset++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+            buffer[offset++] = (byte) (0x80 | (codePoint & 0x3f));
+        }
+        return offset;
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright © 2025 BellSoft (info@bell-sw.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.asm0dey.botassistant.service;
+
+import com.github.asm0dey.botassistant.model.ChatMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent requests for the same prompt into a single upstream call.
+ * <p>
+ * Within a replica, callers with the same cache key share one in-flight response. Across replicas,
+ * a short Redis lease elects one replica to call OpenAI; the others wait for the lease to be released
+ * and then read the response from the cache.
+ */
+@Service
+public class RequestCoalescer {
+    private static final Logger log = LoggerFactory.getLogger(RequestCoalescer.class);
+
+    private static final String LEASE_KEY_PREFIX = "bot:inflight:";
+    private static final RedisScript<Long> RELEASE_SCRIPT = RedisScript.of(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final ReactiveRedisTemplate<String, Object> reactiveRedisTemplate;
+    private final Map<String, Mono<ChatMessage>> inFlight = new ConcurrentHashMap<>();
+    private final String ownerId = UUID.randomUUID().toString();
+    private final Counter localCoalesced;
+    private final Counter remoteCoalesced;
+
+    @Value("${bot.coalescing.enabled:true}")
+    private boolean enabled;
+
+    @Value("${bot.coalescing.lease:30s}")
+    private Duration lease;
+
+    @Value("${bot.coalescing.poll-interval:100ms}")
+    private Duration pollInterval;
+
+    public RequestCoalescer(ReactiveRedisTemplate<String, Object> reactiveRedisTemplate, MeterRegistry meterRegistry) {
+        this.reactiveRedisTemplate = reactiveRedisTemplate;
+        this.localCoalesced = coalescedCounter(meterRegistry, "local");
+        this.remoteCoalesced = coalescedCounter(meterRegistry, "remote");
+    }
+
+    /**
+     * Get a response for a prompt, sharing the upstream call with concurrent requests for the same key.
+     *
+     * @param key      the cache key of the prompt
+     * @param lookup   reads the response from the cache once another replica has produced it
+     * @param generate calls upstream and caches the response
+     * @return a Mono emitting the response
+     */
+    public Mono<ChatMessage> coalesce(String key, Supplier<Mono<ChatMessage>> lookup, Supplier<Mono<ChatMessage>> generate) {
+        if (!enabled) {
+            return generate.get();
+        }
+
+        return Mono.defer(() -> {
+            boolean[] leader = {false};
+            Mono<ChatMessage> shared = inFlight.computeIfAbsent(key, k -> {
+                leader[0] = true;
+                return coalesceAcrossReplicas(k, lookup, generate)
+                        .doFinally(signal -> inFlight.remove(k))
+                        .cache();
+            });
+            if (!leader[0]) {
+                log.debug("Joining in-flight request for key: {}", key);
+                localCoalesced.increment();
+            }
+            return shared;
+        });
+    }
+
+    /**
+     * Get the number of distinct prompts currently in flight on this replica.
+     *
+     * @return the in-flight count
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    private Mono<ChatMessage> coalesceAcrossReplicas(String key, Supplier<Mono<ChatMessage>> lookup, Supplier<Mono<ChatMessage>> generate) {
+        String leaseKey = LEASE_KEY_PREFIX + key;
+
+        return reactiveRedisTemplate.opsForValue().setIfAbsent(leaseKey, ownerId, lease)
+                .onErrorResume(e -> {
+                    log.error("Error acquiring in-flight lease, calling upstream directly", e);
+                    return Mono.just(true);
+                })
+                .flatMap(acquired -> {
+                    if (acquired) {
+                        return generate.get()
+                                .flatMap(response -> release(leaseKey).thenReturn(response));
+                    }
+
+                    log.debug("Waiting for another replica to answer key: {}", key);
+                    remoteCoalesced.increment();
+                    return awaitRelease(leaseKey)
+                            .then(Mono.defer(lookup))
+                            .switchIfEmpty(Mono.defer(generate));
+                });
+    }
+
+    /**
+     * Complete once the lease is gone, or once it should have expired.
+     */
+    private Mono<Void> awaitRelease(String leaseKey) {
+        return Flux.interval(pollInterval)
+                .concatMap(tick -> reactiveRedisTemplate.hasKey(leaseKey))
+                .filter(held -> !held)
+                .next()
+                .timeout(lease, Mono.just(false))
+                .onErrorResume(e -> {
+                    log.error("Error waiting for in-flight lease", e);
+                    return Mono.just(false);
+                })
+                .then();
+    }
+
+    /**
+     * Release the lease if this replica still owns it.
+     */
+    private Mono<Void> release(String leaseKey) {
+        return reactiveRedisTemplate.execute(RELEASE_SCRIPT, List.of(leaseKey), List.of(ownerId))
+                .onErrorResume(e -> {
+                    log.error("Error releasing in-flight lease", e);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private static Counter coalescedCounter(MeterRegistry meterRegistry, String scope) {
+        return Counter.builder("bot.coalescing.requests")
+                .description("Requests served by another request's upstream call")
+                .tag("scope", scope)
+                .register(meterRegistry);
+    }
+}
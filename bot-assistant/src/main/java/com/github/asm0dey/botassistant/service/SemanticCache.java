@@ -0,0 +1,317 @@
+/*
+ * Copyright © 2025 BellSoft (info@bell-sw.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.asm0dey.botassistant.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.asm0dey.botassistant.model.ChatMessage;
+import com.github.jelmerk.knn.DistanceFunctions;
+import com.github.jelmerk.knn.Item;
+import com.github.jelmerk.knn.SearchResult;
+import com.github.jelmerk.knn.hnsw.HnswIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.embedding.EmbeddingModel;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Semantic response cache.
+ * <p>
+ * Normalized prompts are embedded and kept in an in-process HNSW index, so a paraphrase of a cached
+ * prompt can be answered when its cosine similarity reaches the configured threshold.
+ * The index is persisted to a local file on shutdown and at a fixed interval.
+ * Expired entries and entries of older generations are removed before every save and whenever the index is full.
+ * Embedding may involve a remote call, so callers should not invoke this from an event loop thread.
+ */
+public class SemanticCache implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(SemanticCache.class);
+    /**
+     * Neighbours fetched per lookup, so a dead nearest entry does not hide a live one right behind it.
+     */
+    private static final int NEAREST_CANDIDATES = 8;
+
+    private final EmbeddingModel embeddingModel;
+    private final ObjectMapper objectMapper;
+    private final double similarityThreshold;
+    private final int maxItems;
+    private final Duration timeToLive;
+    private final Path indexFile;
+    private final ScheduledExecutorService saveExecutor;
+    private volatile HnswIndex<String, float[], Entry, Float> index;
+    private final AtomicLong liveGeneration = new AtomicLong();
+
+    public SemanticCache(EmbeddingModel embeddingModel,
+                         ObjectMapper objectMapper,
+                         double similarityThreshold,
+                         int maxItems,
+                         Duration timeToLive,
+                         Path indexFile,
+                         Duration saveInterval) {
+        this.embeddingModel = embeddingModel;
+        this.objectMapper = objectMapper;
+        this.similarityThreshold = similarityThreshold;
+        this.maxItems = maxItems;
+        this.timeToLive = timeToLive;
+        this.indexFile = indexFile;
+        this.index = load(indexFile);
+        if (index != null) {
+            index.items().forEach(entry -> liveGeneration.accumulateAndGet(entry.generation(), Math::max));
+        }
+
+        if (indexFile != null && saveInterval.isPositive()) {
+            saveExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "bot-semantic-cache-save");
+                thread.setDaemon(true);
+                return thread;
+            });
+            saveExecutor.scheduleWithFixedDelay(this::evictAndSave, saveInterval.toMillis(), saveInterval.toMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            saveExecutor = null;
+        }
+    }
+
+    /**
+     * Find the cached response to the most similar live prompt of the given generation.
+     *
+     * @param message    the message to find a response for
+     * @param generation the live cache generation
+     * @return an Optional containing the cached response if one is similar enough
+     */
+    public Optional<ChatMessage> findSimilar(ChatMessage message, long generation) {
+        HnswIndex<String, float[], Entry, Float> currentIndex = index;
+        if (currentIndex == null || currentIndex.size() == 0) {
+            return Optional.empty();
+        }
+
+        try {
+            float[] vector = embeddingModel.embed(PromptNormalizer.normalize(message.content()));
+            if (vector.length != currentIndex.getDimensions()) {
+                log.warn("Embedding has {} dimensions, the semantic index has {}", vector.length, currentIndex.getDimensions());
+                return Optional.empty();
+            }
+
+            liveGeneration.accumulateAndGet(generation, Math::max);
+            // Results come nearest first, so the first live entry above the threshold is the best match
+            for (SearchResult<Entry, Float> result : currentIndex.findNearest(vector, NEAREST_CANDIDATES)) {
+                Entry entry = result.item();
+                double similarity = 1 - result.distance();
+                if (similarity < similarityThreshold) {
+                    break;
+                }
+                if (entry.generation() != generation || isExpired(entry)) {
+                    continue;
+                }
+
+                log.info("Semantic cache hit ({}) for message: {} -> {}", String.format("%.3f", similarity), message.content(), entry.prompt());
+                return Optional.of(objectMapper.readValue(entry.response(), ChatMessage.class));
+            }
+            return Optional.empty();
+        } catch (Exception e) {
+            log.error("Error looking up semantic cache", e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Add a response to the semantic index.
+     *
+     * @param message    the message the response answers
+     * @param response   the response
+     * @param generation the live cache generation
+     */
+    public void add(ChatMessage message, ChatMessage response, long generation) {
+        try {
+            String prompt = PromptNormalizer.normalize(message.content());
+            float[] vector = embeddingModel.embed(prompt);
+            liveGeneration.accumulateAndGet(generation, Math::max);
+            HnswIndex<String, float[], Entry, Float> currentIndex = getOrCreateIndex(vector.length);
+            if (currentIndex.size() >= maxItems) {
+                if (evict(currentIndex) == 0) {
+                    log.debug("Semantic index is full of live entries, not adding: {}", message.content());
+                    return;
+                }
+                currentIndex = getOrCreateIndex(vector.length);
+            }
+
+            Entry entry = new Entry(PromptNormalizer.digest(prompt), vector, prompt,
+                    objectMapper.writeValueAsString(response), generation, System.currentTimeMillis());
+            currentIndex.add(entry);
+        } catch (Exception e) {
+            log.error("Error adding response to semantic cache", e);
+        }
+    }
+
+    /**
+     * Remove expired entries and entries of generations older than the live one.
+     *
+     * @return the number of removed entries
+     */
+    public int evict() {
+        HnswIndex<String, float[], Entry, Float> currentIndex = index;
+        return currentIndex == null ? 0 : evict(currentIndex);
+    }
+
+    /**
+     * Drop every entry from the index.
+     */
+    public void clear() {
+        index = null;
+    }
+
+    /**
+     * Get the number of entries in the index.
+     *
+     * @return the index size
+     */
+    public int size() {
+        HnswIndex<String, float[], Entry, Float> currentIndex = index;
+        return currentIndex == null ? 0 : currentIndex.size();
+    }
+
+    /**
+     * Write the index to its file. The file is replaced atomically, so a crash never leaves a partial index.
+     */
+    public void save() {
+        HnswIndex<String, float[], Entry, Float> currentIndex = index;
+        if (indexFile == null) {
+            return;
+        }
+
+        try {
+            if (currentIndex == null) {
+                Files.deleteIfExists(indexFile);
+                return;
+            }
+            Path parent = indexFile.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path tempFile = Files.createTempFile(parent, indexFile.getFileName().toString(), ".tmp");
+            try (OutputStream out = Files.newOutputStream(tempFile)) {
+                currentIndex.save(out);
+            }
+            Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Saved {} semantic cache entries to {}", currentIndex.size(), indexFile);
+        } catch (IOException e) {
+            log.error("Error saving semantic cache index to {}", indexFile, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (saveExecutor != null) {
+            saveExecutor.shutdownNow();
+        }
+        evictAndSave();
+    }
+
+    private void evictAndSave() {
+        evict();
+        save();
+    }
+
+    /**
+     * Rebuild the index from its live entries.
+     * Removing from an HNSW index only marks nodes deleted without freeing their capacity, so a rebuild is the
+     * only way to make room. Entries added to the old index while it is rebuilt are lost, which a cache can afford.
+     */
+    private synchronized int evict(HnswIndex<String, float[], Entry, Float> currentIndex) {
+        long generation = liveGeneration.get();
+        List<Entry> live = currentIndex.items().stream()
+                .filter(entry -> entry.generation() >= generation && !isExpired(entry))
+                .toList();
+        int removed = currentIndex.size() - live.size();
+        if (removed == 0 || index != currentIndex) {
+            return 0;
+        }
+
+        HnswIndex<String, float[], Entry, Float> rebuilt = newIndex(currentIndex.getDimensions());
+        live.forEach(rebuilt::add);
+        index = rebuilt;
+        log.debug("Evicted {} expired or stale semantic cache entries", removed);
+        return removed;
+    }
+
+    private boolean isExpired(Entry entry) {
+        return System.currentTimeMillis() - entry.createdAt() > timeToLive.toMillis();
+    }
+
+    private synchronized HnswIndex<String, float[], Entry, Float> getOrCreateIndex(int dimensions) {
+        HnswIndex<String, float[], Entry, Float> currentIndex = index;
+        if (currentIndex == null || currentIndex.getDimensions() != dimensions) {
+            currentIndex = newIndex(dimensions);
+            index = currentIndex;
+        }
+        return currentIndex;
+    }
+
+    private HnswIndex<String, float[], Entry, Float> newIndex(int dimensions) {
+        return HnswIndex.newBuilder(dimensions, DistanceFunctions.FLOAT_COSINE_DISTANCE, maxItems)
+                .withM(16)
+                .withEfConstruction(200)
+                .withEf(64)
+                .withRemoveEnabled()
+                .build();
+    }
+
+    private static HnswIndex<String, float[], Entry, Float> load(Path indexFile) {
+        if (indexFile == null || !Files.exists(indexFile)) {
+            return null;
+        }
+
+        try {
+            HnswIndex<String, float[], Entry, Float> loaded = HnswIndex.load(indexFile, SemanticCache.class.getClassLoader());
+            log.info("Loaded {} semantic cache entries from {}", loaded.size(), indexFile);
+            return loaded;
+        } catch (Exception e) {
+            log.warn("Could not load semantic cache index from {}, starting empty", indexFile, e);
+            return null;
+        }
+    }
+
+    /**
+     * An indexed prompt with its serialized response.
+     * The creation time doubles as the item version, so re-adding a prompt replaces the older entry.
+     */
+    record Entry(
+            String id,
+            float[] vector,
+            String prompt,
+            String response,
+            long generation,
+            long createdAt
+    ) implements Item<String, float[]> {
+
+        @Override
+        public int dimensions() {
+            return vector.length;
+        }
+
+        @Override
+        public long version() {
+            return createdAt;
+        }
+    }
+}
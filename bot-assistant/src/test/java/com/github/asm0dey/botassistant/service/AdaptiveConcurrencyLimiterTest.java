@@ -0,0 +1,102 @@
+/*
+ * Copyright © 2025 BellSoft (info@bell-sw.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.asm0dey.botassistant.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    void testRejectsWhenLimitAndQueueAreFull() {
+        AdaptiveConcurrencyLimiter limiter = createLimiter(1, 0, Duration.ofSeconds(1));
+        Sinks.One<String> upstream = Sinks.one();
+
+        StepVerifier.create(limiter.execute(upstream::asMono))
+                .then(() -> {
+                    assertEquals(1, limiter.getInFlight());
+                    StepVerifier.create(limiter.execute(() -> Mono.just("second")))
+                            .expectError(AdaptiveConcurrencyLimiter.LimitExceededException.class)
+                            .verify();
+                    upstream.tryEmitValue("first");
+                })
+                .expectNext("first")
+                .verifyComplete();
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void testQueuedCallRunsWhenPermitIsReleased() {
+        AdaptiveConcurrencyLimiter limiter = createLimiter(1, 1, Duration.ofSeconds(5));
+        Sinks.One<String> upstream = Sinks.one();
+
+        StepVerifier.create(limiter.execute(upstream::asMono))
+                .then(() -> {
+                    StepVerifier.create(limiter.execute(() -> Mono.just("queued")))
+                            .then(() -> {
+                                assertEquals(1, limiter.getQueueDepth());
+                                upstream.tryEmitValue("first");
+                            })
+                            .expectNext("queued")
+                            .verifyComplete();
+                })
+                .expectNext("first")
+                .verifyComplete();
+        assertEquals(0, limiter.getQueueDepth());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void testQueuedCallIsRejectedAfterMaxWait() {
+        AdaptiveConcurrencyLimiter limiter = createLimiter(1, 1, Duration.ofMillis(50));
+        Sinks.One<String> upstream = Sinks.one();
+
+        limiter.execute(upstream::asMono).subscribe();
+        StepVerifier.create(limiter.execute(() -> Mono.just("queued")))
+                .expectError(AdaptiveConcurrencyLimiter.LimitExceededException.class)
+                .verify(Duration.ofSeconds(1));
+        assertEquals(0, limiter.getQueueDepth());
+
+        upstream.tryEmitValue("first");
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void testLimitGrowsOnFastCallsAndShrinksOnFailures() {
+        AdaptiveConcurrencyLimiter limiter = createLimiter(10, 0, Duration.ofSeconds(1));
+
+        limiter.execute(() -> Mono.just("fast")).block();
+        assertTrue(limiter.getLimit() > 10, "A fast call should grow the limit");
+
+        double grown = limiter.getLimit();
+        StepVerifier.create(limiter.execute(() -> Mono.error(new IllegalStateException("upstream failed"))))
+                .expectError(IllegalStateException.class)
+                .verify();
+        assertEquals(grown * 0.5, limiter.getLimit(), 1e-9, "A failed call should shrink the limit");
+    }
+
+    private static AdaptiveConcurrencyLimiter createLimiter(int initialLimit, int maxQueueSize, Duration maxWait) {
+        return new AdaptiveConcurrencyLimiter(new SimpleMeterRegistry(), true, initialLimit, 1, 100, 0.5,
+                Duration.ofSeconds(3), maxQueueSize, maxWait);
+    }
+}
@@ -15,6 +15,8 @@
  */
 package com.github.asm0dey.botassistant.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.asm0dey.botassistant.model.CachedResponse;
 import com.github.asm0dey.botassistant.model.ChatMessage;
 import com.redis.testcontainers.RedisContainer;
 import org.junit.jupiter.api.BeforeEach;
@@ -25,10 +27,15 @@ import org.springframework.boot.testcontainers.service.connection.ServiceConnect
 import org.springframework.data.redis.core.RedisTemplate;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
+import reactor.test.StepVerifier;
 
-import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import static com.github.asm0dey.botassistant.service.ChatMessages.message;
+import static com.github.asm0dey.botassistant.service.ChatMessages.response;
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -44,6 +51,9 @@ public class CacheServiceTest {
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @BeforeEach
     void setUp() {
         // Clear the cache before each test
@@ -53,28 +63,10 @@ public class CacheServiceTest {
     @Test
     void testCacheResponseAndRetrieval() {
         // Create a test message
-        ChatMessage message = new ChatMessage(
-                "test-id",
-                "test-session",
-                "user-1",
-                "Test User",
-                ChatMessage.MessageType.CHAT,
-                "Hello, world!",
-                LocalDateTime.now(),
-                false
-        );
+        ChatMessage message = message("Hello, world!");
 
         // Create a test response
-        ChatMessage response = new ChatMessage(
-                "response-id",
-                "test-session",
-                "bot",
-                "Bot Assistant",
-                ChatMessage.MessageType.BOT,
-                "Hello, Test User!",
-                LocalDateTime.now(),
-                true
-        );
+        ChatMessage response = response("Hello, Test User!");
 
         // Cache the response
         cacheService.cacheResponse(message, response);
@@ -87,4 +79,122 @@ public class CacheServiceTest {
         assertEquals(response.content(), cachedResponse.get().content(), "Cached response content should match original");
         assertEquals(response.type(), cachedResponse.get().type(), "Cached response type should match original");
     }
+
+    @Test
+    void testReactiveCacheResponseAndRetrieval() {
+        ChatMessage message = message("Hello, reactive world!");
+        ChatMessage response = response("Hello, reactive Test User!");
+
+        // Nothing is cached yet
+        StepVerifier.create(cacheService.getCachedResponseReactive(message))
+                .verifyComplete();
+
+        StepVerifier.create(cacheService.cacheResponseReactive(message, response))
+                .verifyComplete();
+
+        // The reactive write is visible to both the reactive and the blocking lookup
+        StepVerifier.create(cacheService.getCachedResponseReactive(message))
+                .assertNext(cached -> assertEquals(response.content(), cached.content(), "Cached response content should match original"))
+                .verifyComplete();
+        assertTrue(cacheService.getCachedResponse(message).isPresent(), "Blocking lookup should see the reactive write");
+    }
+
+    @Test
+    void testLocalCacheServesAndIsClearedWithRedis() {
+        ChatMessage message = message("Hello, local world!");
+        ChatMessage response = response("Hello, local Test User!");
+
+        cacheService.cacheResponse(message, response);
+
+        // The L1 keeps serving the response without a Redis round trip
+        redisTemplate.delete(cacheService.generateCacheKey(message));
+        assertTrue(cacheService.getCachedResponse(message).isPresent(), "L1 should serve the response");
+
+        // Clearing the cache also clears the L1
+        cacheService.cacheResponse(message, response);
+        cacheService.clearCache();
+        assertFalse(cacheService.getCachedResponse(message).isPresent(), "Cleared response should not be served");
+    }
+
+    @Test
+    void testClearCacheStartsNewGeneration() {
+        ChatMessage message = message("Hello, next generation!");
+
+        String keyBefore = cacheService.generateCacheKey(message);
+        cacheService.clearCache();
+        String keyAfter = cacheService.generateCacheKey(message);
+
+        assertNotEquals(keyBefore, keyAfter, "Clearing the cache should move keys to a new generation");
+        assertTrue(CacheService.generationOf(keyBefore) < CacheService.generationOf(keyAfter),
+                "The new generation should be newer than the old one");
+    }
+
+    @Test
+    void testBulkReactiveLookupKeepsMessageOrder() throws Exception {
+        ChatMessage inLocalCache = message("Bulk question one?");
+        ChatMessage missing = message("Bulk question two?");
+        ChatMessage onlyInRedis = message("Bulk question three?");
+
+        cacheService.cacheResponse(inLocalCache, response("Answer one"));
+        // Written straight to Redis, so only the MGET can find it
+        redisTemplate.opsForValue().set(cacheService.generateCacheKey(onlyInRedis),
+                objectMapper.writeValueAsString(new CachedResponse(onlyInRedis.content(), response("Answer three"))));
+
+        StepVerifier.create(cacheService.getCachedResponsesReactive(List.of(inLocalCache, missing, onlyInRedis)))
+                .assertNext(responses -> {
+                    assertEquals(3, responses.size());
+                    assertEquals("Answer one", responses.get(0).orElseThrow().content());
+                    assertTrue(responses.get(1).isEmpty(), "Uncached message should miss");
+                    assertEquals("Answer three", responses.get(2).orElseThrow().content());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void testBulkCacheWriteAndLookup() {
+        ChatMessage first = message("Pipelined question one?");
+        ChatMessage second = message("Pipelined question two?");
+        ChatMessage uncached = message("Pipelined question three?");
+
+        Map<ChatMessage, ChatMessage> responses = new LinkedHashMap<>();
+        responses.put(first, response("Pipelined answer one"));
+        responses.put(second, response("Pipelined answer two"));
+        cacheService.cacheResponses(responses);
+
+        // Every entry reached Redis with the cache TTL
+        for (ChatMessage message : List.of(first, second)) {
+            String key = cacheService.generateCacheKey(message);
+            assertNotNull(redisTemplate.opsForValue().get(key), "Entry should be written to Redis");
+            Long ttl = redisTemplate.getExpire(key);
+            assertTrue(ttl != null && ttl > 0, "Entry should expire");
+        }
+
+        List<Optional<ChatMessage>> cached = cacheService.getCachedResponses(List.of(second, uncached, first));
+        assertEquals("Pipelined answer two", cached.get(0).orElseThrow().content());
+        assertTrue(cached.get(1).isEmpty(), "Uncached message should miss");
+        assertEquals("Pipelined answer one", cached.get(2).orElseThrow().content());
+    }
+
+    @Test
+    void testLookupsTrackPromptFrequency() {
+        redisTemplate.delete(CacheService.PROMPT_FREQUENCY_KEY);
+        ChatMessage popular = message("  Popular   QUESTION? ");
+        ChatMessage rare = message("Rare question?");
+
+        cacheService.getCachedResponse(popular);
+        cacheService.getCachedResponses(List.of(popular, rare));
+        cacheService.getCachedResponseReactive(popular).block();
+        // Warm-up lookups and coalescer rechecks do not count as requests
+        cacheService.preloadResponses(List.of(rare, rare, rare));
+        cacheService.recheckCachedResponseReactive(rare).block();
+
+        // Frequencies are counted in memory and reach Redis with the next flush
+        cacheService.flushPromptFrequencies();
+        assertEquals(List.of("popular question?", "rare question?"), cacheService.getTopPrompts(10));
+        assertEquals(3.0, redisTemplate.opsForZSet().score(CacheService.PROMPT_FREQUENCY_KEY, "popular question?"));
+        assertEquals(1.0, redisTemplate.opsForZSet().score(CacheService.PROMPT_FREQUENCY_KEY, "rare question?"));
+
+        cacheService.trimPromptFrequencies(1);
+        assertEquals(List.of("popular question?"), cacheService.getTopPrompts(10));
+    }
 }
@@ -0,0 +1,51 @@
+/*
+ * Copyright © 2025 BellSoft (info@bell-sw.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.asm0dey.botassistant.service;
+
+import com.github.asm0dey.botassistant.model.ChatMessage;
+
+import java.time.LocalDateTime;
+
+/**
+ * Chat messages shared by the cache tests.
+ */
+final class ChatMessages {
+
+    private ChatMessages() {
+    }
+
+    /**
+     * Create a user message in the test session.
+     *
+     * @param content the message content
+     * @return the user message
+     */
+    static ChatMessage message(String content) {
+        return new ChatMessage("test-id", "test-session", "user-1", "Test User",
+                ChatMessage.MessageType.CHAT, content, LocalDateTime.now(), false);
+    }
+
+    /**
+     * Create a bot response in the test session.
+     *
+     * @param content the response content
+     * @return the bot response
+     */
+    static ChatMessage response(String content) {
+        return new ChatMessage("response-id", "test-session", "bot", "Bot Assistant",
+                ChatMessage.MessageType.BOT, content, LocalDateTime.now(), true);
+    }
+}
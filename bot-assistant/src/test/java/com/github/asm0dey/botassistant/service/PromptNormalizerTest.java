@@ -0,0 +1,56 @@
+/*
+ * Copyright © 2025 BellSoft (info@bell-sw.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.asm0dey.botassistant.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PromptNormalizerTest {
+
+    @Test
+    void testDigestIgnoresCaseAndWhitespace() {
+        String digest = PromptNormalizer.digest("Hello, world!");
+
+        assertEquals(64, digest.length(), "Digest should be a hex encoded SHA-256");
+        assertEquals(digest, PromptNormalizer.digest("  hello,\t\n WORLD!  "));
+        assertNotEquals(digest, PromptNormalizer.digest("Hello, world?"));
+        assertNotEquals(digest, PromptNormalizer.digest("Hello,world!"));
+    }
+
+    @Test
+    void testDigestMatchesNormalizedText() throws Exception {
+        String prompt = " What is  Java 😀\r\n21? " + "x".repeat(1000);
+        String normalized = PromptNormalizer.legacyNormalize(prompt);
+
+        byte[] hash = MessageDigest.getInstance("SHA-256")
+                .digest(normalized.getBytes(StandardCharsets.UTF_8));
+        assertEquals(HexFormat.of().formatHex(hash), PromptNormalizer.digest(prompt));
+    }
+
+    @Test
+    void testNormalizedEquals() {
+        assertTrue(PromptNormalizer.normalizedEquals("Hello   World", " hello world\n"));
+        assertTrue(PromptNormalizer.normalizedEquals("", "   "));
+        assertFalse(PromptNormalizer.normalizedEquals("Hello World", "HelloWorld"));
+        assertFalse(PromptNormalizer.normalizedEquals("Hello World", "Hello World!"));
+        assertFalse(PromptNormalizer.normalizedEquals("Hello", null));
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright © 2025 BellSoft (info@bell-sw.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.asm0dey.botassistant.service;
+
+import com.github.asm0dey.botassistant.model.ChatMessage;
+import com.redis.testcontainers.RedisContainer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Testcontainers
+public class RequestCoalescerTest {
+    @Container
+    @ServiceConnection
+    static RedisContainer redis = new RedisContainer("redis");
+
+    @Autowired
+    private RequestCoalescer requestCoalescer;
+
+    @Test
+    void testConcurrentRequestsShareOneUpstreamCall() {
+        ChatMessage response = new ChatMessage(
+                "response-id",
+                "test-session",
+                "bot",
+                "Bot Assistant",
+                ChatMessage.MessageType.BOT,
+                "Hello, Test User!",
+                LocalDateTime.now(),
+                true
+        );
+        AtomicInteger upstreamCalls = new AtomicInteger();
+
+        List<ChatMessage> responses = Flux.range(0, 10)
+                .flatMap(i -> requestCoalescer.coalesce(
+                        "bot:response:coalescing-test",
+                        Mono::empty,
+                        () -> Mono.fromCallable(upstreamCalls::incrementAndGet)
+                                .delayElement(Duration.ofMillis(200))
+                                .thenReturn(response)))
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertNotNull(responses);
+        assertEquals(10, responses.size(), "Every caller should receive a response");
+        assertTrue(responses.stream().allMatch(response::equals), "Every caller should receive the shared response");
+        assertEquals(1, upstreamCalls.get(), "Only one upstream call should be made");
+        assertEquals(0, requestCoalescer.getInFlightCount(), "Completed requests should not stay in flight");
+    }
+}
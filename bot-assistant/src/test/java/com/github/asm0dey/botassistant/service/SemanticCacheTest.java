@@ -0,0 +1,101 @@
+/*
+ * Copyright © 2025 BellSoft (info@bell-sw.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.asm0dey.botassistant.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.asm0dey.botassistant.model.ChatMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+import static com.github.asm0dey.botassistant.service.ChatMessages.message;
+import static com.github.asm0dey.botassistant.service.ChatMessages.response;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SemanticCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testParaphraseHitsAndUnrelatedPromptMisses() {
+        SemanticCache semanticCache = createSemanticCache(null);
+        semanticCache.add(message("What is Java?"), response("Java is a programming language."), 0);
+
+        Optional<ChatMessage> paraphrase = semanticCache.findSimilar(message("what's java"), 0);
+        assertTrue(paraphrase.isPresent(), "Paraphrase should hit the semantic cache");
+        assertEquals("Java is a programming language.", paraphrase.get().content());
+
+        assertFalse(semanticCache.findSimilar(message("What is Python?"), 0).isPresent(),
+                "Similar but different prompt should miss the semantic cache");
+        assertFalse(semanticCache.findSimilar(message("How do I bake bread?"), 0).isPresent(),
+                "Unrelated prompt should miss the semantic cache");
+        assertFalse(semanticCache.findSimilar(message("What is Java?"), 1).isPresent(),
+                "Entries from an older generation should not be served");
+    }
+
+    @Test
+    void testIndexIsPersistedAndReloaded() {
+        Path indexFile = tempDir.resolve("semantic-cache.hnsw");
+        SemanticCache semanticCache = createSemanticCache(indexFile);
+        semanticCache.add(message("What is Java?"), response("Java is a programming language."), 0);
+        semanticCache.close();
+        assertTrue(Files.exists(indexFile), "Index should be saved on close");
+
+        SemanticCache reloaded = createSemanticCache(indexFile);
+        assertEquals(1, reloaded.size());
+        assertTrue(reloaded.findSimilar(message("what's java"), 0).isPresent(), "Reloaded index should serve hits");
+    }
+
+    @Test
+    void testStaleNearestEntryDoesNotHideLiveMatch() {
+        SemanticCache semanticCache = createSemanticCache(null);
+        semanticCache.add(message("What is Java?"), response("Old answer"), 0);
+        semanticCache.add(message("What is Java exactly?"), response("Live answer"), 1);
+
+        Optional<ChatMessage> hit = semanticCache.findSimilar(message("What is Java?"), 1);
+        assertTrue(hit.isPresent(), "A live neighbour should be served when the nearest entry is stale");
+        assertEquals("Live answer", hit.get().content());
+    }
+
+    @Test
+    void testFullIndexEvictsStaleEntries() {
+        SemanticCache semanticCache = createSemanticCache(null, 2);
+        semanticCache.add(message("What is Java?"), response("Java is a programming language."), 0);
+        semanticCache.add(message("How do I bake bread?"), response("Use flour."), 0);
+        semanticCache.add(message("What is Python?"), response("Python is a programming language."), 1);
+
+        assertEquals(1, semanticCache.size(), "Entries of the old generation should make room");
+        assertTrue(semanticCache.findSimilar(message("What is Python?"), 1).isPresent(),
+                "A full index should keep learning once stale entries are gone");
+    }
+
+    private SemanticCache createSemanticCache(Path indexFile) {
+        return createSemanticCache(indexFile, 1000);
+    }
+
+    private SemanticCache createSemanticCache(Path indexFile, int maxItems) {
+        return new SemanticCache(new HashingEmbeddingModel(256), objectMapper, 0.75, maxItems,
+                Duration.ofHours(1), indexFile, Duration.ZERO);
+    }
+}
@@ -18,7 +18,7 @@ package com.github.asm0dey.chatapi;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
-import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Main application class for the Chat API service.
@@ -27,7 +27,7 @@ import org.springframework.scheduling.annotation.EnableAsync;
  */
 @SpringBootApplication
 @EnableMongoRepositories
-@EnableAsync
+@EnableScheduling
 public class ChatApiApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,127 @@
+/*
+ * Copyright © 2025 BellSoft (info@bell-sw.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.asm0dey.chatapi.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the executors behind the STOMP inbound, outbound and broker channels.
+ * <p>
+ * {@code chat.websocket.executor.type=pool} uses a {@link ThreadPoolTaskExecutor} sized per channel,
+ * {@code virtual} starts a virtual thread per message, optionally capped by a concurrency limit, so
+ * blocking MongoDB calls in message handlers no longer tie up a platform thread. Every executor
+ * publishes {@code chat.websocket.executor.queued} and {@code chat.websocket.executor.active}
+ * gauges tagged with the channel name.
+ * <p>
+ * With {@code chat.websocket.executor.inbound.partitioned=true} the inbound channel uses a
+ * {@link PartitionedExecutor} instead, so messages of one chat session are handled strictly in order
+ * while different chat sessions proceed in parallel. Its lanes run on virtual threads when the
+ * executor type is {@code virtual}.
+ */
+class ChannelExecutors {
+    private static final String PREFIX = "chat.websocket.executor.";
+
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final boolean virtual;
+
+    ChannelExecutors(Environment environment, MeterRegistry meterRegistry) {
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+        this.virtual = "virtual".equalsIgnoreCase(environment.getProperty(PREFIX + "type", "pool"));
+    }
+
+    /**
+     * Create the executor for a channel, configured from {@code chat.websocket.executor.<channel>.*}.
+     *
+     * @param channel the channel name: inbound, outbound or broker
+     * @return the executor, initialized by the application context when registered with a channel
+     */
+    Executor create(String channel) {
+        Counters counters = new Counters();
+        Gauge.builder(PREFIX + "queued", counters.queued, AtomicInteger::get)
+                .tag("channel", channel)
+                .register(meterRegistry);
+        Gauge.builder(PREFIX + "active", counters.active, AtomicInteger::get)
+                .tag("channel", channel)
+                .register(meterRegistry);
+
+        String threadNamePrefix = "ws-" + channel + "-";
+        if (environment.getProperty(PREFIX + channel + ".partitioned", Boolean.class, false)) {
+            int partitions = property(channel, "partitions", Runtime.getRuntime().availableProcessors() * 4);
+            ThreadFactory threadFactory = virtual
+                    ? Thread.ofVirtual().name(threadNamePrefix, 0).factory()
+                    : Thread.ofPlatform().name(threadNamePrefix, 0).daemon(true).factory();
+            return new PartitionedExecutor(partitions, threadFactory, counters);
+        }
+        if (virtual) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(property(channel, "concurrency-limit", -1));
+            executor.setTaskDecorator(counters);
+            return executor;
+        }
+        int processors = Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setCorePoolSize(property(channel, "core-size", processors * 2));
+        executor.setMaxPoolSize(property(channel, "max-size", Integer.MAX_VALUE));
+        executor.setQueueCapacity(property(channel, "queue-capacity", Integer.MAX_VALUE));
+        executor.setKeepAliveSeconds(60);
+        executor.setAllowCoreThreadTimeOut(true);
+        // Channels preserve per-session order by handing over one message at a time,
+        // so running an overflowing message on the caller does not reorder it
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setTaskDecorator(counters);
+        return executor;
+    }
+
+    private int property(String channel, String name, int defaultValue) {
+        return environment.getProperty(PREFIX + channel + "." + name, Integer.class, defaultValue);
+    }
+
+    /**
+     * Counts submitted tasks that have not started yet and tasks that are running.
+     */
+    private static final class Counters implements TaskDecorator {
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicInteger active = new AtomicInteger();
+
+        @Override
+        public Runnable decorate(Runnable runnable) {
+            queued.incrementAndGet();
+            return () -> {
+                queued.decrementAndGet();
+                active.incrementAndGet();
+                try {
+                    runnable.run();
+                } finally {
+                    active.decrementAndGet();
+                }
+            };
+        }
+    }
+}
@@ -26,6 +26,8 @@ import org.springframework.context.annotation.Primary;
 import org.springframework.data.mongodb.config.EnableMongoAuditing;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.mapping.event.ValidatingMongoEventListener;
+import org.springframework.data.mongodb.core.messaging.DefaultMessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.MessageListenerContainer;
 import org.springframework.stereotype.Component;
 import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
 
@@ -66,6 +68,14 @@ public class MongoConfig {
         return new MongoTemplate(client, "chat");
     }
 
+    /**
+     * Container for change stream subscriptions, started and stopped with the application context.
+     */
+    @Bean
+    public MessageListenerContainer messageListenerContainer(MongoTemplate mongoTemplate) {
+        return new DefaultMessageListenerContainer(mongoTemplate);
+    }
+
     @Component
     static public class MongoClientResource implements Resource {
 
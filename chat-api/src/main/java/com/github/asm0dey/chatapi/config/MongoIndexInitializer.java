@@ -0,0 +1,73 @@
+/*
+ * Copyright © 2025 BellSoft (info@bell-sw.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.asm0dey.chatapi.config;
+
+import com.github.asm0dey.chatapi.model.ChatMessage;
+import com.github.asm0dey.chatapi.model.ChatSession;
+import com.github.asm0dey.chatapi.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Creates the indexes declared on the model classes when the application starts.
+ * <p>
+ * Replaces {@code spring.data.mongodb.auto-index-creation}, which creates indexes lazily, whenever the
+ * mapping context first meets an entity, and only logs failures. Here every index exists before the first
+ * request and the application does not start if one cannot be created, e.g. because of a conflicting definition.
+ */
+@Component
+public class MongoIndexInitializer implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoIndexInitializer.class);
+
+    static final List<Class<?>> INDEXED_ENTITIES = List.of(User.class, ChatSession.class, ChatMessage.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+
+    public MongoIndexInitializer(MongoTemplate mongoTemplate,
+                                 @Value("${chat.mongodb.create-indexes:true}") boolean enabled) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            log.info("Index creation at startup is disabled");
+            return;
+        }
+
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+        for (Class<?> entity : INDEXED_ENTITIES) {
+            IndexOperations indexOperations = mongoTemplate.indexOps(entity);
+            resolver.resolveIndexFor(entity).forEach(index -> {
+                String name = indexOperations.ensureIndex(index);
+                log.debug("Ensured index {} on {}", name, mongoTemplate.getCollectionName(entity));
+            });
+        }
+        log.info("Ensured indexes for {} collections", INDEXED_ENTITIES.size());
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright © 2025 BellSoft (info@bell-sw.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.asm0dey.chatapi.config;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executor that runs messages of the same chat session in order, and different chat sessions in parallel.
+ * <p>
+ * Each message is hashed to one of a fixed number of single-threaded lanes by the chat session id
+ * in its {@code /app/chat/{sessionId}} destination. Messages without one, such as CONNECT or
+ * SUBSCRIBE frames, are hashed by their WebSocket session id instead. Distinct chat sessions
+ * only wait for each other when they hash to the same lane.
+ * <p>
+ * Registered with a channel, the executor becomes that channel's executor bean, so the context
+ * drains the lanes on close like it shuts down the other channel executors.
+ */
+class PartitionedExecutor implements Executor, DisposableBean {
+    private static final String CHAT_DESTINATION_PREFIX = "/app/chat/";
+
+    private final ExecutorService[] lanes;
+    private final TaskDecorator taskDecorator;
+
+    PartitionedExecutor(int partitions, ThreadFactory threadFactory, TaskDecorator taskDecorator) {
+        this.lanes = new ExecutorService[partitions];
+        for (int i = 0; i < partitions; i++) {
+            lanes[i] = Executors.newSingleThreadExecutor(threadFactory);
+        }
+        this.taskDecorator = taskDecorator;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        lanes[laneOf(task)].execute(taskDecorator.decorate(task));
+    }
+
+    @Override
+    public void destroy() {
+        shutdown();
+    }
+
+    /**
+     * Stop all lanes, letting already submitted messages finish.
+     */
+    public void shutdown() {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+        for (ExecutorService lane : lanes) {
+            try {
+                lane.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    int laneOf(Runnable task) {
+        String key = task instanceof MessageHandlingRunnable runnable ? partitionKey(runnable.getMessage()) : null;
+        int hash = key != null ? key.hashCode() : System.identityHashCode(task);
+        // Spread the hash so keys differing only in high bits still land on different lanes
+        hash ^= hash >>> 16;
+        return Math.floorMod(hash, lanes.length);
+    }
+
+    /**
+     * The chat session id of a {@code /app/chat/{sessionId}/**} message, or else its WebSocket session id.
+     */
+    static String partitionKey(Message<?> message) {
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (destination != null && destination.startsWith(CHAT_DESTINATION_PREFIX)) {
+            int end = destination.indexOf('/', CHAT_DESTINATION_PREFIX.length());
+            return destination.substring(CHAT_DESTINATION_PREFIX.length(), end < 0 ? destination.length() : end);
+        }
+        return SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright © 2025 BellSoft (info@bell-sw.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.asm0dey.chatapi.config;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * WebClient configuration for communication with the Bot Assistant service.
+ * <p>
+ * The client is built once on a named Reactor Netty {@link ConnectionProvider}, so connections
+ * to the Bot Assistant are pooled and reused. Pool gauges are published to Micrometer under
+ * {@code reactor.netty.connection.provider.*} and can be inspected via the actuator metrics endpoint.
+ */
+@Configuration
+public class WebClientConfig {
+
+    @Value("${bot.assistant.http.pool.name:bot-assistant}")
+    private String poolName;
+
+    @Value("${bot.assistant.http.pool.max-connections:200}")
+    private int maxConnections;
+
+    @Value("${bot.assistant.http.pool.pending-acquire-max-count:1000}")
+    private int pendingAcquireMaxCount;
+
+    @Value("${bot.assistant.http.pool.pending-acquire-timeout:5s}")
+    private Duration pendingAcquireTimeout;
+
+    @Value("${bot.assistant.http.pool.max-idle-time:30s}")
+    private Duration maxIdleTime;
+
+    @Value("${bot.assistant.http.pool.max-life-time:5m}")
+    private Duration maxLifeTime;
+
+    @Value("${bot.assistant.http.pool.evict-in-background:30s}")
+    private Duration evictInBackground;
+
+    @Value("${bot.assistant.http.http2-enabled:false}")
+    private boolean http2Enabled;
+
+    /**
+     * Pooled connection provider for calls to the Bot Assistant.
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider botAssistantConnectionProvider() {
+        return ConnectionProvider.builder(poolName)
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(maxLifeTime)
+                .evictInBackground(evictInBackground)
+                .metrics(true)
+                .build();
+    }
+
+    /**
+     * WebClient for the Bot Assistant, built once at startup and reused for every request.
+     */
+    @Bean
+    public WebClient botAssistantWebClient(WebClient.Builder webClientBuilder,
+                                           ConnectionProvider botAssistantConnectionProvider,
+                                           @Value("${bot.assistant.url:http://localhost:8081}") String botAssistantUrl) {
+        HttpClient httpClient = HttpClient.create(botAssistantConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 5000);
+
+        if (http2Enabled) {
+            // The Bot Assistant is reached over plain HTTP, so HTTP/2 is negotiated via h2c upgrade
+            httpClient = httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+        }
+
+        return webClientBuilder
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .baseUrl(botAssistantUrl)
+                .build();
+    }
+}
@@ -15,7 +15,13 @@
  */
 package com.github.asm0dey.chatapi.config;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
@@ -24,16 +30,84 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 /**
  * WebSocket configuration for the Chat API.
  * Configures STOMP endpoints and message broker.
+ * <p>
+ * With {@code chat.broker.mode=simple} topics are served by an in-memory broker, so subscribers
+ * only see messages published on the same instance. With {@code chat.broker.mode=relay} topics are
+ * relayed to an external STOMP broker, so any number of instances can run behind a load balancer.
+ * Each instance only subscribes at the broker for the destinations its own clients subscribed to,
+ * so the broker never forwards a message to an instance without subscribers.
+ * <p>
+ * The inbound, outbound and broker channels run on executors from {@link ChannelExecutors}.
+ * Messages of one WebSocket session are received and published in order regardless of the executor.
  */
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+    private static final Logger log = LoggerFactory.getLogger(WebSocketConfig.class);
+
+    private final ChannelExecutors channelExecutors;
+
+    @Value("${chat.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${chat.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${chat.broker.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${chat.broker.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${chat.broker.relay.passcode:guest}")
+    private String relayPasscode;
+
+    @Value("${chat.broker.relay.virtual-host:}")
+    private String relayVirtualHost;
+
+    @Value("${chat.broker.relay.heartbeat-interval:10000}")
+    private long relayHeartbeatInterval;
+
+    public WebSocketConfig(Environment environment, MeterRegistry meterRegistry) {
+        this.channelExecutors = new ChannelExecutors(environment, meterRegistry);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.executor(channelExecutors.create("inbound"));
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.executor(channelExecutors.create("outbound"));
+    }
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        // Enable a simple in-memory message broker to send messages to clients
-        // on destinations prefixed with /topic
-        config.enableSimpleBroker("/topic");
+        config.configureBrokerChannel().executor(channelExecutors.create("broker"));
+        // Deliver messages to each client session in the order they were published
+        config.setPreservePublishOrder(true);
+
+        if ("relay".equalsIgnoreCase(brokerMode)) {
+            // Relay destinations prefixed with /topic to an external STOMP broker shared by all instances
+            log.info("Relaying /topic to STOMP broker at {}:{}", relayHost, relayPort);
+            var relay = config.enableStompBrokerRelay("/topic")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode)
+                    .setSystemHeartbeatSendInterval(relayHeartbeatInterval)
+                    .setSystemHeartbeatReceiveInterval(relayHeartbeatInterval);
+            if (!relayVirtualHost.isBlank()) {
+                relay.setVirtualHost(relayVirtualHost);
+            }
+        } else {
+            // Enable a simple in-memory message broker to send messages to clients
+            // on destinations prefixed with /topic
+            config.enableSimpleBroker("/topic");
+        }
 
         // Set prefix for messages from clients to application
         config.setApplicationDestinationPrefixes("/app");
@@ -41,6 +115,9 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
+        // Handle messages from each client session in the order they were received
+        registry.setPreserveReceiveOrder(true);
+
         // Register STOMP endpoint for WebSocket connection
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns("*") // For development, restrict in production
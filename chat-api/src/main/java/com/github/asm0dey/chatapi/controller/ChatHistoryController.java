@@ -15,58 +15,125 @@
  */
 package com.github.asm0dey.chatapi.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.asm0dey.chatapi.model.ChatHistoryPage;
 import com.github.asm0dey.chatapi.model.ChatMessage;
+import com.github.asm0dey.chatapi.model.MessageCursor;
 import com.github.asm0dey.chatapi.repository.ChatMessageRepository;
+import com.github.asm0dey.chatapi.service.RecentMessageBuffer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * REST controller for retrieving chat history.
+ * <p>
+ * Full exports are written by a dedicated pool of {@code chat.history.export.max-concurrent} threads
+ * and may run for up to {@code chat.history.export.timeout}; further exports are rejected with 503
+ * while the pool is busy.
  */
 @RestController
 @RequestMapping("/api/chat/history")
 public class ChatHistoryController {
 
+    private static final Logger log = LoggerFactory.getLogger(ChatHistoryController.class);
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final ChatMessageRepository chatMessageRepository;
+    private final RecentMessageBuffer recentMessages;
+    private final ObjectMapper objectMapper;
+    private final int exportBatchSize;
+    private final Duration exportTimeout;
+    private final ThreadPoolTaskExecutor exportExecutor;
 
-    public ChatHistoryController(ChatMessageRepository chatMessageRepository) {
+    public ChatHistoryController(ChatMessageRepository chatMessageRepository,
+                                 RecentMessageBuffer recentMessages,
+                                 ObjectMapper objectMapper,
+                                 @Value("${chat.history.export.batch-size:500}") int exportBatchSize,
+                                 @Value("${chat.history.export.timeout:30m}") Duration exportTimeout,
+                                 @Value("${chat.history.export.max-concurrent:8}") int exportMaxConcurrent) {
         this.chatMessageRepository = chatMessageRepository;
+        this.recentMessages = recentMessages;
+        this.objectMapper = objectMapper;
+        this.exportBatchSize = exportBatchSize;
+        this.exportTimeout = exportTimeout;
+        this.exportExecutor = new ThreadPoolTaskExecutor();
+        exportExecutor.setThreadNamePrefix("chat-export-");
+        exportExecutor.setCorePoolSize(exportMaxConcurrent);
+        exportExecutor.setMaxPoolSize(exportMaxConcurrent);
+        // No queue: an export that cannot start right away is rejected instead of waiting
+        exportExecutor.setQueueCapacity(0);
+        exportExecutor.setAllowCoreThreadTimeOut(true);
+        exportExecutor.initialize();
+    }
+
+    /**
+     * Stop the export threads.
+     */
+    @PreDestroy
+    public void shutdown() {
+        exportExecutor.shutdown();
     }
 
     /**
      * Get all messages across all sessions (admin only).
+     * The messages are streamed from a cursor, as a JSON array or as NDJSON when the client accepts it.
      *
-     * @return a list of all chat messages
+     * @param accept the Accept header
+     * @return all chat messages, streamed
      */
-    @GetMapping("/all")
+    @GetMapping(value = "/all", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<ChatMessage>> getAllMessages() {
-        List<ChatMessage> messages = chatMessageRepository.findAll();
-        return ResponseEntity.ok(messages);
+    public ResponseEntity<ResponseBodyEmitter> getAllMessages(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return export(() -> chatMessageRepository.streamAll(exportBatchSize), accept);
     }
 
     /**
-     * Get all messages for a specific chat session.
+     * Get all messages for a specific chat session, oldest first.
+     * The messages are streamed from a cursor, as a JSON array or as NDJSON when the client accepts it.
      *
      * @param sessionId the session ID
-     * @return a list of chat messages
+     * @param accept    the Accept header
+     * @return the chat messages, streamed
      */
-    @GetMapping("/{sessionId}")
+    @GetMapping(value = "/{sessionId}", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<List<ChatMessage>> getChatHistory(@PathVariable String sessionId) {
-        List<ChatMessage> messages = chatMessageRepository.findBySessionId(sessionId);
-        return ResponseEntity.ok(messages);
+    public ResponseEntity<ResponseBodyEmitter> getChatHistory(
+            @PathVariable String sessionId,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return export(() -> chatMessageRepository.streamBySessionId(sessionId, exportBatchSize), accept);
     }
 
     /**
      * Get paginated messages for a specific chat session.
+     * Every page costs a count query and skips over all earlier pages;
+     * prefer {@link #getChatHistorySlice} for scrolling through long histories.
      *
      * @param sessionId the session ID
      * @param page      the page number (0-based)
@@ -85,8 +152,62 @@ public class ChatHistoryController {
         return ResponseEntity.ok(messages);
     }
 
+    /**
+     * Get a slice of a chat session's history by cursor, newest message first.
+     * Without a cursor the newest messages are returned.
+     * Recent slices are served from the {@link RecentMessageBuffer} when it holds them;
+     * otherwise the cost of a slice does not depend on how far back it is.
+     *
+     * @param sessionId the session ID
+     * @param before    a {@link ChatHistoryPage#nextCursor()} to get the messages older than it
+     * @param after     a {@link ChatHistoryPage#previousCursor()} to get the messages newer than it
+     * @param size      the maximum number of messages, up to {@value #MAX_PAGE_SIZE}
+     * @return the slice of history with the cursors of its neighbours
+     */
+    @GetMapping("/{sessionId}/slice")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<ChatHistoryPage> getChatHistorySlice(
+            @PathVariable String sessionId,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int size) {
+
+        if (before != null && after != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Only one of before and after may be given");
+        }
+        int limit = Math.clamp(size, 1, MAX_PAGE_SIZE);
+
+        List<ChatMessage> messages;
+        boolean hasOlder;
+        if (after != null) {
+            // Read oldest first so the slice starts right after the cursor, then flip it
+            MessageCursor cursor = decodeCursor(after);
+            messages = new ArrayList<>(recentMessages.findAfter(sessionId, cursor, limit)
+                    .orElseGet(() -> chatMessageRepository.findBySessionIdAfter(sessionId, cursor, limit)));
+            Collections.reverse(messages);
+            hasOlder = true;
+        } else {
+            MessageCursor cursor = before == null ? null : decodeCursor(before);
+            // One extra message tells whether there is an older slice, without a count query
+            messages = recentMessages.findBefore(sessionId, cursor, limit + 1)
+                    .orElseGet(() -> chatMessageRepository.findBySessionIdBefore(sessionId, cursor, limit + 1));
+            hasOlder = messages.size() > limit;
+            if (hasOlder) {
+                messages = messages.subList(0, limit);
+            }
+        }
+
+        if (messages.isEmpty()) {
+            return ResponseEntity.ok(new ChatHistoryPage(messages, null, null));
+        }
+        String nextCursor = hasOlder ? MessageCursor.of(messages.getLast()).encode() : null;
+        String previousCursor = MessageCursor.of(messages.getFirst()).encode();
+        return ResponseEntity.ok(new ChatHistoryPage(messages, nextCursor, previousCursor));
+    }
+
     /**
      * Get messages for a specific chat session after a given timestamp.
+     * Served from the {@link RecentMessageBuffer} when it holds every message after the timestamp.
      *
      * @param sessionId the session ID
      * @param timestamp the timestamp to filter messages after
@@ -98,7 +219,8 @@ public class ChatHistoryController {
             @PathVariable String sessionId,
             @RequestParam LocalDateTime timestamp) {
 
-        List<ChatMessage> messages = chatMessageRepository.findBySessionIdAndTimestampAfter(sessionId, timestamp);
+        List<ChatMessage> messages = recentMessages.findAfter(sessionId, timestamp)
+                .orElseGet(() -> chatMessageRepository.findBySessionIdAndTimestampAfter(sessionId, timestamp));
         return ResponseEntity.ok(messages);
     }
 
@@ -114,4 +236,73 @@ public class ChatHistoryController {
         long count = chatMessageRepository.countBySessionId(sessionId);
         return ResponseEntity.ok(count);
     }
+
+    /**
+     * Start writing messages to the response on an export thread, with the export timeout
+     * applying to this response only.
+     */
+    private ResponseEntity<ResponseBodyEmitter> export(Supplier<Stream<ChatMessage>> messages, String accept) {
+        boolean ndjson = accept != null && accept.contains(MediaType.APPLICATION_NDJSON_VALUE);
+        MediaType contentType = ndjson ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON;
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(exportTimeout.toMillis());
+        try {
+            exportExecutor.execute(() -> writeExport(emitter, messages, ndjson, contentType));
+        } catch (TaskRejectedException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many chat history exports in progress", e);
+        }
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .body(emitter);
+    }
+
+    /**
+     * Write messages as they come from the cursor, sending them after every batch.
+     * Only one batch is held in memory at a time. A client that disconnects, or an export that
+     * times out, fails the next send, which closes the stream and with it the server-side cursor.
+     */
+    private void writeExport(ResponseBodyEmitter emitter, Supplier<Stream<ChatMessage>> messages,
+                             boolean ndjson, MediaType contentType) {
+        long written = 0;
+        ByteArrayOutputStream batch = new ByteArrayOutputStream();
+        try (Stream<ChatMessage> stream = messages.get();
+             JsonGenerator generator = objectMapper.createGenerator(batch)) {
+            if (!ndjson) {
+                generator.writeStartArray();
+            }
+            for (ChatMessage message : (Iterable<ChatMessage>) stream::iterator) {
+                generator.writeObject(message);
+                if (ndjson) {
+                    generator.writeRaw('\n');
+                }
+                if (++written % exportBatchSize == 0) {
+                    send(emitter, generator, batch, contentType);
+                }
+            }
+            if (!ndjson) {
+                generator.writeEndArray();
+            }
+            send(emitter, generator, batch, contentType);
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Chat history export stopped after {} messages: {}", written, e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Chat history export failed after {} messages", written, e);
+            emitter.completeWithError(e);
+        }
+    }
+
+    private static void send(ResponseBodyEmitter emitter, JsonGenerator generator, ByteArrayOutputStream batch,
+                             MediaType contentType) throws IOException {
+        generator.flush();
+        emitter.send(batch.toByteArray(), contentType);
+        batch.reset();
+    }
+
+    private static MessageCursor decodeCursor(String cursor) {
+        try {
+            return MessageCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor", e);
+        }
+    }
 }
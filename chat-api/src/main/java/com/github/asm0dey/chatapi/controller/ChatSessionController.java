@@ -16,9 +16,11 @@
 package com.github.asm0dey.chatapi.controller;
 
 import com.github.asm0dey.chatapi.model.ChatSession;
+import com.github.asm0dey.chatapi.model.SessionSummary;
 import com.github.asm0dey.chatapi.model.User;
 import com.github.asm0dey.chatapi.repository.ChatSessionRepository;
 import com.github.asm0dey.chatapi.repository.UserRepository;
+import com.github.asm0dey.chatapi.service.ChatSessionService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
@@ -44,34 +46,40 @@ public class ChatSessionController {
     public static final String SESSION_NOT_FOUND = "Session not found";
     private final ChatSessionRepository chatSessionRepository;
     private final UserRepository userRepository;
+    private final ChatSessionService chatSessionService;
 
-    public ChatSessionController(ChatSessionRepository chatSessionRepository, UserRepository userRepository) {
+    public ChatSessionController(ChatSessionRepository chatSessionRepository, UserRepository userRepository,
+                                 ChatSessionService chatSessionService) {
         this.chatSessionRepository = chatSessionRepository;
         this.userRepository = userRepository;
+        this.chatSessionService = chatSessionService;
     }
 
     /**
-     * Get all chat sessions for the authenticated user.
+     * Get summaries of all chat sessions for the authenticated user.
+     * The sessions come from the session cache, so only the summaries cross the wire.
      *
-     * @return a list of chat sessions
+     * @return a list of chat session summaries
      */
     @GetMapping
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<List<ChatSession>> getUserSessions() {
+    public ResponseEntity<List<SessionSummary>> getUserSessions() {
         String userId = getCurrentUserId();
-        List<ChatSession> sessions = chatSessionRepository.findByParticipant(userId);
+        List<SessionSummary> sessions = chatSessionService.findByParticipant(userId).stream()
+                .map(SessionSummary::of)
+                .toList();
         return ResponseEntity.ok(sessions);
     }
 
     /**
-     * Get all chat sessions (admin only).
+     * Get summaries of all chat sessions (admin only).
      *
-     * @return a list of all chat sessions
+     * @return a list of all chat session summaries
      */
     @GetMapping("/all")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<ChatSession>> getAllSessions() {
-        List<ChatSession> sessions = chatSessionRepository.findAll();
+    public ResponseEntity<List<SessionSummary>> getAllSessions() {
+        List<SessionSummary> sessions = chatSessionRepository.findAllSummaries();
         return ResponseEntity.ok(sessions);
     }
 
@@ -104,7 +112,7 @@ public class ChatSessionController {
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<ChatSession> getSessionById(@PathVariable String id) {
         String userId = getCurrentUserId();
-        ChatSession session = chatSessionRepository.findById(id)
+        ChatSession session = chatSessionService.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, SESSION_NOT_FOUND));
 
         // Check if user is a participant
@@ -139,6 +147,7 @@ public class ChatSessionController {
         session.setUpdatedAt(LocalDateTime.now());
 
         ChatSession savedSession = chatSessionRepository.save(session);
+        chatSessionService.sessionSaved(savedSession);
         return ResponseEntity.status(HttpStatus.CREATED).body(savedSession);
     }
 
@@ -184,6 +193,7 @@ public class ChatSessionController {
         session.setUpdatedAt(LocalDateTime.now());
 
         ChatSession updatedSession = chatSessionRepository.save(session);
+        chatSessionService.sessionSaved(updatedSession);
         return ResponseEntity.ok(updatedSession);
     }
 
@@ -220,7 +230,7 @@ public class ChatSessionController {
         if (!session.getParticipants().contains(participantId)) {
             session.getParticipants().add(participantId);
             session.setUpdatedAt(LocalDateTime.now());
-            chatSessionRepository.save(session);
+            chatSessionService.sessionSaved(chatSessionRepository.save(session));
         }
 
         return ResponseEntity.ok(session);
@@ -252,7 +262,7 @@ public class ChatSessionController {
         if (session.getParticipants().contains(userId)) {
             session.getParticipants().remove(userId);
             session.setUpdatedAt(LocalDateTime.now());
-            chatSessionRepository.save(session);
+            chatSessionService.sessionSaved(chatSessionRepository.save(session));
         }
 
         return ResponseEntity.ok(session);
@@ -277,6 +287,7 @@ public class ChatSessionController {
         }
 
         chatSessionRepository.deleteById(id);
+        chatSessionService.sessionDeleted(id);
         return ResponseEntity.noContent().build();
     }
 
@@ -16,10 +16,9 @@
 package com.github.asm0dey.chatapi.controller;
 
 import com.github.asm0dey.chatapi.model.ChatMessage;
-import com.github.asm0dey.chatapi.model.ChatSession;
-import com.github.asm0dey.chatapi.repository.ChatMessageRepository;
-import com.github.asm0dey.chatapi.repository.ChatSessionRepository;
 import com.github.asm0dey.chatapi.service.BotAssistantService;
+import com.github.asm0dey.chatapi.service.ChatMessagePersistenceService;
+import com.github.asm0dey.chatapi.service.ChatSessionService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
@@ -30,9 +29,6 @@ import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.stereotype.Controller;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
 
 /**
  * Controller for handling WebSocket chat messages.
@@ -41,15 +37,15 @@ import java.util.Optional;
 public class ChatWebSocketController {
     private static final Logger log = LoggerFactory.getLogger(ChatWebSocketController.class);
 
-    private final ChatMessageRepository chatMessageRepository;
-    private final ChatSessionRepository chatSessionRepository;
+    private final ChatMessagePersistenceService persistenceService;
+    private final ChatSessionService chatSessionService;
     private final BotAssistantService botAssistantService;
 
-    public ChatWebSocketController(ChatMessageRepository chatMessageRepository,
-                                   ChatSessionRepository chatSessionRepository,
+    public ChatWebSocketController(ChatMessagePersistenceService persistenceService,
+                                   ChatSessionService chatSessionService,
                                    BotAssistantService botAssistantService) {
-        this.chatMessageRepository = chatMessageRepository;
-        this.chatSessionRepository = chatSessionRepository;
+        this.persistenceService = persistenceService;
+        this.chatSessionService = chatSessionService;
         this.botAssistantService = botAssistantService;
     }
 
@@ -80,51 +76,22 @@ public class ChatWebSocketController {
         chatMessage.setSessionId(sessionId);
         chatMessage.setTimestamp(LocalDateTime.now());
 
-        // Save the message to MongoDB
-        ChatMessage savedMessage = chatMessageRepository.save(chatMessage);
-
-        // Update the last message timestamp in the session
-        Optional<ChatSession> sessionOpt = chatSessionRepository.findById(sessionId);
-
-        // If session doesn't exist, create it
-        if (sessionOpt.isEmpty()) {
-            log.info("Creating new chat session with ID: {}", sessionId);
-
-            // Create a list of participants
-            List<String> participants = new ArrayList<>();
-            if (username != null) {
-                participants.add(username);
-            }
-
-            LocalDateTime now = LocalDateTime.now();
-
-            // Use the Builder pattern to create a new ChatSession
-            ChatSession newSession = ChatSession.builder()
-                    .id(sessionId)
-                    .name("Chat Session")
-                    .description("Automatically created chat session")
-                    .createdBy(username != null ? username : "system")
-                    .participants(participants)
-                    .isActive(true)
-                    .createdAt(now)
-                    .updatedAt(now)
-                    .lastMessageAt(now)
-                    .isPrivate(false)
-                    .botEnabled(true)
-                    .build();
-
-            sessionOpt = Optional.of(chatSessionRepository.save(newSession));
-            log.info("Created new chat session: {}", newSession);
-        } else {
-            // Update existing session
-            ChatSession session = sessionOpt.get();
-            session.setLastMessageAt(LocalDateTime.now());
-            chatSessionRepository.save(session);
-        }
+        // Resolve the session from the cache, creating it with an upsert if it doesn't exist
+        ChatSessionService.SessionMetadata session = chatSessionService.resolveSession(sessionId, username);
+
+        // Mark the message before it is persisted, so the bot does not have to write it again
+        boolean forBot = session.botEnabled() &&
+                chatMessage.getType() == ChatMessage.MessageType.CHAT;
+        chatMessage.setProcessedByBot(forBot);
+
+        // Save the message to MongoDB, or queue it when write-behind is enabled
+        ChatMessage savedMessage = persistenceService.persist(chatMessage);
+
+        // Update the last message timestamp in the session on the next flush
+        chatSessionService.recordMessage(sessionId, savedMessage.getTimestamp());
 
         // Process message with bot assistant if enabled for this session
-        if (sessionOpt.get().isBotEnabled() &&
-                chatMessage.getType() == ChatMessage.MessageType.CHAT) {
+        if (forBot) {
             botAssistantService.processMessage(savedMessage);
         }
 
@@ -158,6 +125,6 @@ public class ChatWebSocketController {
         chatMessage.setTimestamp(LocalDateTime.now());
 
         // Save the message
-        return chatMessageRepository.save(chatMessage);
+        return persistenceService.persist(chatMessage);
     }
 }
@@ -16,6 +16,7 @@
 package com.github.asm0dey.chatapi.controller;
 
 import com.github.asm0dey.chatapi.model.User;
+import com.github.asm0dey.chatapi.model.UserSummary;
 import com.github.asm0dey.chatapi.repository.UserRepository;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -43,16 +44,14 @@ public class UserController {
     }
 
     /**
-     * Get all users.
+     * Get summaries of all users. Password hashes are not even read from the database.
      *
-     * @return a list of all users
+     * @return a list of all user summaries
      */
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<User>> getAllUsers() {
-        List<User> users = userRepository.findAll();
-        // Don't expose password hashes
-        users.forEach(user -> user.setPassword(null));
+    public ResponseEntity<List<UserSummary>> getAllUsers() {
+        List<UserSummary> users = userRepository.findAllSummaries();
         return ResponseEntity.ok(users);
     }
 
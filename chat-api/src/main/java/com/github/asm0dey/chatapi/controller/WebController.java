@@ -19,6 +19,7 @@ import com.github.asm0dey.chatapi.model.ChatSession;
 import com.github.asm0dey.chatapi.model.User;
 import com.github.asm0dey.chatapi.repository.ChatSessionRepository;
 import com.github.asm0dey.chatapi.repository.UserRepository;
+import com.github.asm0dey.chatapi.service.ChatSessionService;
 import gg.jte.generated.precompiled.Templates;
 import gg.jte.models.runtime.JteModel;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -44,11 +45,14 @@ public class WebController {
 
     private final UserRepository userRepository;
     private final ChatSessionRepository chatSessionRepository;
+    private final ChatSessionService chatSessionService;
     private final Templates templates;
 
-    public WebController(UserRepository userRepository, ChatSessionRepository chatSessionRepository, Templates templates) {
+    public WebController(UserRepository userRepository, ChatSessionRepository chatSessionRepository,
+                         ChatSessionService chatSessionService, Templates templates) {
         this.userRepository = userRepository;
         this.chatSessionRepository = chatSessionRepository;
+        this.chatSessionService = chatSessionService;
         this.templates = templates;
     }
 
@@ -75,7 +79,7 @@ public class WebController {
             User user = userOpt.get();
 
             // Find the user's sessions
-            List<ChatSession> sessions = chatSessionRepository.findByParticipant(user.getId());
+            List<ChatSession> sessions = chatSessionService.findByParticipant(user.getId());
 
             // If the user has sessions, use the first one's ID; otherwise, create a new session
             String sessionId = sessions.isEmpty() ? createSession(user, username) : sessions.getFirst().getId();
@@ -113,6 +117,7 @@ public class WebController {
                 .build();
 
         ChatSession savedSession = chatSessionRepository.save(newSession);
+        chatSessionService.sessionSaved(savedSession);
         sessionId = savedSession.getId();
         return sessionId;
     }
@@ -16,7 +16,7 @@
 package com.github.asm0dey.chatapi.listener;
 
 import com.github.asm0dey.chatapi.model.ChatMessage;
-import com.github.asm0dey.chatapi.repository.ChatMessageRepository;
+import com.github.asm0dey.chatapi.service.ChatMessagePersistenceService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.event.EventListener;
@@ -36,12 +36,12 @@ public class WebSocketEventListener {
     private static final Logger log = LoggerFactory.getLogger(WebSocketEventListener.class);
 
     private final SimpMessageSendingOperations messagingTemplate;
-    private final ChatMessageRepository chatMessageRepository;
+    private final ChatMessagePersistenceService persistenceService;
 
     public WebSocketEventListener(SimpMessageSendingOperations messagingTemplate,
-                                  ChatMessageRepository chatMessageRepository) {
+                                  ChatMessagePersistenceService persistenceService) {
         this.messagingTemplate = messagingTemplate;
-        this.chatMessageRepository = chatMessageRepository;
+        this.persistenceService = persistenceService;
     }
 
     /**
@@ -70,7 +70,7 @@ public class WebSocketEventListener {
             leaveMessage.setContent(username + " left the chat");
 
             // Save the leave message
-            chatMessageRepository.save(leaveMessage);
+            persistenceService.persist(leaveMessage);
 
             // Send leave message to the session
             messagingTemplate.convertAndSend("/topic/chat/" + sessionId, leaveMessage);
@@ -0,0 +1,28 @@
+/*
+ * Copyright © 2025 BellSoft (info@bell-sw.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.asm0dey.chatapi.model;
+
+import java.util.List;
+
+/**
+ * A slice of a session's history, newest message first.
+ *
+ * @param messages       the messages, newest first
+ * @param nextCursor     pass as {@code before} to get older messages; {@code null} when there are none
+ * @param previousCursor pass as {@code after} to get newer messages; {@code null} when the slice is empty
+ */
+public record ChatHistoryPage(List<ChatMessage> messages, String nextCursor, String previousCursor) {
+}
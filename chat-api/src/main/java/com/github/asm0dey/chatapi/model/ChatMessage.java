@@ -17,6 +17,7 @@ package com.github.asm0dey.chatapi.model;
 
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -25,14 +26,17 @@ import java.util.Objects;
 
 /**
  * Represents a chat message in the system.
+ * <p>
+ * The {@code session_timestamp_id} index serves history queries in both directions, including
+ * the keyset pagination on {@code (timestamp, _id)}, and its prefix serves lookups by session.
  */
 @Document(collection = "messages")
+@CompoundIndex(name = "session_timestamp_id", def = "{'sessionId': 1, 'timestamp': -1, '_id': -1}")
 public class ChatMessage {
 
     @Id
     private String id;
 
-    @Indexed
     private String sessionId;
 
     @Indexed
@@ -18,6 +18,7 @@ package com.github.asm0dey.chatapi.model;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -27,8 +28,12 @@ import java.util.List;
 
 /**
  * Represents a chat session between users.
+ * <p>
+ * {@code participants_last_message} is a multikey index: it serves the sessions of a participant,
+ * most recently active first, without an in-memory sort.
  */
 @Document(collection = "sessions")
+@CompoundIndex(name = "participants_last_message", def = "{'participants': 1, 'lastMessageAt': -1}")
 public class ChatSession {
 
     @Id
@@ -0,0 +1,60 @@
+/*
+ * Copyright © 2025 BellSoft (info@bell-sw.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.asm0dey.chatapi.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read model of a {@link ChatSession} for list views.
+ * Carries the number of participants instead of the participant list.
+ *
+ * @param id               the session ID
+ * @param name             the session name
+ * @param description      the session description
+ * @param createdBy        the user who created the session
+ * @param participantCount the number of participants
+ * @param active           whether the session is active
+ * @param botEnabled       whether the bot answers in the session
+ * @param createdAt        when the session was created
+ * @param lastMessageAt    when the last message was sent, if any
+ */
+public record SessionSummary(
+        @Id String id,
+        String name,
+        String description,
+        String createdBy,
+        int participantCount,
+        @Field("isActive") boolean active,
+        boolean botEnabled,
+        LocalDateTime createdAt,
+        LocalDateTime lastMessageAt
+) {
+
+    /**
+     * Summarize a session that is already loaded.
+     *
+     * @param session the session
+     * @return the summary of the session
+     */
+    public static SessionSummary of(ChatSession session) {
+        return new SessionSummary(session.getId(), session.getName(), session.getDescription(), session.getCreatedBy(),
+                session.getParticipants() == null ? 0 : session.getParticipants().size(),
+                session.isActive(), session.isBotEnabled(), session.getCreatedAt(), session.getLastMessageAt());
+    }
+}
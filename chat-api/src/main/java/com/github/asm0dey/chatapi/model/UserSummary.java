@@ -0,0 +1,45 @@
+/*
+ * Copyright © 2025 BellSoft (info@bell-sw.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.asm0dey.chatapi.model;
+
+import org.springframework.data.annotation.Id;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * Read model of a {@link User} for list views, without the password hash.
+ *
+ * @param id          the user ID
+ * @param username    the username
+ * @param email       the email address
+ * @param displayName the display name
+ * @param roles       the roles
+ * @param enabled     whether the user can log in
+ * @param createdAt   when the user was created
+ * @param updatedAt   when the user was last updated
+ */
+public record UserSummary(
+        @Id String id,
+        String username,
+        String email,
+        String displayName,
+        Set<String> roles,
+        boolean enabled,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt
+) {
+}
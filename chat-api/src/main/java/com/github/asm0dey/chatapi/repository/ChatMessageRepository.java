@@ -28,7 +28,7 @@ import java.util.List;
  * Repository for ChatMessage entity operations.
  */
 @Repository
-public interface ChatMessageRepository extends MongoRepository<ChatMessage, String> {
+public interface ChatMessageRepository extends MongoRepository<ChatMessage, String>, ChatMessageRepositoryCustom {
 
     /**
      * Find messages by session ID.
@@ -0,0 +1,68 @@
+/*
+ * Copyright © 2025 BellSoft (info@bell-sw.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.asm0dey.chatapi.repository;
+
+import com.github.asm0dey.chatapi.model.ChatMessage;
+import com.github.asm0dey.chatapi.model.MessageCursor;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Keyset pagination and streaming over chat history.
+ * The session queries seek into the {@code session_timestamp_id} index, so their cost does not grow with the depth of the page.
+ */
+public interface ChatMessageRepositoryCustom {
+
+    /**
+     * Find messages of a session older than a cursor.
+     *
+     * @param sessionId the session ID
+     * @param before    the cursor to start after, or {@code null} to start from the newest message
+     * @param limit     the maximum number of messages
+     * @return the messages, newest first
+     */
+    List<ChatMessage> findBySessionIdBefore(String sessionId, MessageCursor before, int limit);
+
+    /**
+     * Find messages of a session newer than a cursor.
+     *
+     * @param sessionId the session ID
+     * @param after     the cursor to start after
+     * @param limit     the maximum number of messages
+     * @return the messages, oldest first
+     */
+    List<ChatMessage> findBySessionIdAfter(String sessionId, MessageCursor after, int limit);
+
+    /**
+     * Stream every message from a server-side cursor, in {@code _id} order.
+     * The stream holds an open cursor and must be closed.
+     *
+     * @param batchSize the number of messages fetched per round trip
+     * @return the messages
+     */
+    Stream<ChatMessage> streamAll(int batchSize);
+
+    /**
+     * Stream the messages of a session from a server-side cursor, oldest first.
+     * The stream holds an open cursor and must be closed.
+     *
+     * @param sessionId the session ID
+     * @param batchSize the number of messages fetched per round trip
+     * @return the messages
+     */
+    Stream<ChatMessage> streamBySessionId(String sessionId, int batchSize);
+}
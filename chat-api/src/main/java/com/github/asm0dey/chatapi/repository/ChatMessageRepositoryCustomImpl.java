@@ -0,0 +1,92 @@
+/*
+ * Copyright © 2025 BellSoft (info@bell-sw.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.asm0dey.chatapi.repository;
+
+import com.github.asm0dey.chatapi.model.ChatMessage;
+import com.github.asm0dey.chatapi.model.MessageCursor;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * {@link ChatMessageRepositoryCustom} implementation, picked up by Spring Data through its {@code Impl} suffix.
+ */
+class ChatMessageRepositoryCustomImpl implements ChatMessageRepositoryCustom {
+
+    private static final String TIMESTAMP = "timestamp";
+    private static final String ID = "_id";
+
+    private final MongoTemplate mongoTemplate;
+
+    ChatMessageRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<ChatMessage> findBySessionIdBefore(String sessionId, MessageCursor before, int limit) {
+        Criteria criteria = Criteria.where("sessionId").is(sessionId);
+        if (before != null) {
+            criteria.orOperator(
+                    Criteria.where(TIMESTAMP).lt(before.timestamp()),
+                    Criteria.where(TIMESTAMP).is(before.timestamp()).and(ID).lt(idValue(before.id())));
+        }
+        return find(criteria, Sort.Direction.DESC, limit);
+    }
+
+    @Override
+    public List<ChatMessage> findBySessionIdAfter(String sessionId, MessageCursor after, int limit) {
+        Criteria criteria = Criteria.where("sessionId").is(sessionId).orOperator(
+                Criteria.where(TIMESTAMP).gt(after.timestamp()),
+                Criteria.where(TIMESTAMP).is(after.timestamp()).and(ID).gt(idValue(after.id())));
+        return find(criteria, Sort.Direction.ASC, limit);
+    }
+
+    @Override
+    public Stream<ChatMessage> streamAll(int batchSize) {
+        // Sorting on _id walks its index, so the export has a stable order without an in-memory sort
+        Query query = new Query()
+                .with(Sort.by(Sort.Direction.ASC, ID))
+                .cursorBatchSize(batchSize);
+        return mongoTemplate.stream(query, ChatMessage.class);
+    }
+
+    @Override
+    public Stream<ChatMessage> streamBySessionId(String sessionId, int batchSize) {
+        Query query = Query.query(Criteria.where("sessionId").is(sessionId))
+                .with(Sort.by(Sort.Direction.ASC, TIMESTAMP, ID))
+                .cursorBatchSize(batchSize);
+        return mongoTemplate.stream(query, ChatMessage.class);
+    }
+
+    private List<ChatMessage> find(Criteria criteria, Sort.Direction direction, int limit) {
+        Query query = Query.query(criteria)
+                .with(Sort.by(direction, TIMESTAMP, ID))
+                .limit(limit);
+        return mongoTemplate.find(query, ChatMessage.class);
+    }
+
+    /**
+     * IDs are stored as {@link ObjectId}s when they are valid ones, so compare them as such.
+     */
+    private static Object idValue(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+}
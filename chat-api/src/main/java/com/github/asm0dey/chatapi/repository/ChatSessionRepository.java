@@ -28,7 +28,7 @@ import java.util.List;
  * Repository for ChatSession entity operations.
  */
 @Repository
-public interface ChatSessionRepository extends MongoRepository<ChatSession, String> {
+public interface ChatSessionRepository extends MongoRepository<ChatSession, String>, ChatSessionRepositoryCustom {
 
     /**
      * Find sessions where a user is a participant.
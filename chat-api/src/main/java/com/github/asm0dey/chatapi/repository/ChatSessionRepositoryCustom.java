@@ -0,0 +1,34 @@
+/*
+ * Copyright © 2025 BellSoft (info@bell-sw.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.asm0dey.chatapi.repository;
+
+import com.github.asm0dey.chatapi.model.SessionSummary;
+
+import java.util.List;
+
+/**
+ * Projection queries for session list views.
+ */
+public interface ChatSessionRepositoryCustom {
+
+    /**
+     * Find the summaries of all sessions, in ID order.
+     * Only the summarized fields are read, and the participants are counted by the server.
+     *
+     * @return the session summaries
+     */
+    List<SessionSummary> findAllSummaries();
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright © 2025 BellSoft (info@bell-sw.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.asm0dey.chatapi.repository;
+
+import com.github.asm0dey.chatapi.model.ChatSession;
+import com.github.asm0dey.chatapi.model.SessionSummary;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.MongoExpression;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+
+/**
+ * {@link ChatSessionRepositoryCustom} implementation, picked up by Spring Data through its {@code Impl} suffix.
+ */
+class ChatSessionRepositoryCustomImpl implements ChatSessionRepositoryCustom {
+
+    private static final MongoExpression PARTICIPANT_COUNT =
+            MongoExpression.create("{ $size: { $ifNull: ['$participants', []] } }");
+
+    private final MongoTemplate mongoTemplate;
+
+    ChatSessionRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<SessionSummary> findAllSummaries() {
+        Query query = new Query().with(Sort.by(Sort.Direction.ASC, "id"));
+        query.fields()
+                .include("id", "name", "description", "createdBy", "active", "botEnabled", "createdAt", "lastMessageAt")
+                .project(PARTICIPANT_COUNT).as("participantCount");
+        return mongoTemplate.find(query, SessionSummary.class, mongoTemplate.getCollectionName(ChatSession.class));
+    }
+}
@@ -25,7 +25,7 @@ import java.util.Optional;
  * Repository for User entity operations.
  */
 @Repository
-public interface UserRepository extends MongoRepository<User, String> {
+public interface UserRepository extends MongoRepository<User, String>, UserRepositoryCustom {
 
     /**
      * Find a user by username.
@@ -16,100 +16,390 @@
 package com.github.asm0dey.chatapi.service;
 
 import com.github.asm0dey.chatapi.model.ChatMessage;
-import com.github.asm0dey.chatapi.repository.ChatMessageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.concurrent.Queues;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Implementation of the BotAssistantService that communicates with the Bot Assistant module.
+ * <p>
+ * Messages are queued in a bounded sink and processed by a reactive pipeline that keeps at most
+ * {@code bot.assistant.pipeline.max-concurrency} requests in flight; the rest wait in the queue,
+ * so backpressure reaches the caller as a full queue rather than as rejected tasks. When the queue
+ * is full, {@code bot.assistant.pipeline.overflow-policy} either answers with the fallback message
+ * ({@code fallback}) or drops the message ({@code drop}). Blocking MongoDB writes run on a dedicated
+ * scheduler, never on the Reactor Netty event loop.
+ * <p>
+ * With {@code bot.assistant.batch.enabled=true} (and streaming disabled) queued messages are sent to
+ * {@code /api/bot/process/batch} in micro-batches of up to {@code bot.assistant.batch.max-size} messages,
+ * or whatever arrived within {@code bot.assistant.batch.window}.
  */
 @Service
 public class BotAssistantService {
     private static final Logger log = LoggerFactory.getLogger(BotAssistantService.class);
+    /**
+     * STOMP header marking a frame as part of a streamed bot response.
+     */
+    public static final String STREAM_HEADER = "bot-stream";
+    /**
+     * STOMP header with the id of the message a streamed bot response answers.
+     */
+    public static final String STREAM_ID_HEADER = "bot-stream-id";
+    public static final String STREAM_DELTA = "delta";
+    public static final String STREAM_COMPLETE = "complete";
+    private static final String DELTA_EVENT = "delta";
+    private static final String COMPLETE_EVENT = "complete";
+    private static final ParameterizedTypeReference<ServerSentEvent<ChatMessage>> SSE_MESSAGE_TYPE = new ParameterizedTypeReference<>() {
+    };
 
-    private final ChatMessageRepository chatMessageRepository;
+    private final ChatMessagePersistenceService persistenceService;
     private final SimpMessagingTemplate messagingTemplate;
-    private final WebClient.Builder webClientBuilder;
+    private final WebClient botAssistantWebClient;
+    private final int maxConcurrency;
+    private final boolean batchEnabled;
+    private final int batchMaxSize;
+    private final Duration batchWindow;
+    private final boolean fallbackOnOverflow;
+    private final Sinks.Many<PendingMessage> queue;
+    private final Scheduler persistenceScheduler;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Timer queueWait;
+    private final Timer responseLatency;
+    private final Timer fallbackLatency;
+    private final Counter overflow;
+
+    @Value("${bot.assistant.streaming-enabled:false}")
+    private boolean streamingEnabled;
 
-    @Value("${bot.assistant.url:http://localhost:8081}")
-    private String botAssistantUrl;
+    private Disposable pipeline;
 
-    public BotAssistantService(ChatMessageRepository chatMessageRepository,
+    public BotAssistantService(ChatMessagePersistenceService persistenceService,
                                SimpMessagingTemplate messagingTemplate,
-                               WebClient.Builder webClientBuilder) {
-        this.chatMessageRepository = chatMessageRepository;
+                               WebClient botAssistantWebClient,
+                               MeterRegistry meterRegistry,
+                               @Value("${bot.assistant.pipeline.max-concurrency:64}") int maxConcurrency,
+                               @Value("${bot.assistant.pipeline.queue-capacity:1024}") int queueCapacity,
+                               @Value("${bot.assistant.pipeline.overflow-policy:fallback}") String overflowPolicy,
+                               @Value("${bot.assistant.pipeline.persistence-threads:8}") int persistenceThreads,
+                               @Value("${bot.assistant.batch.enabled:false}") boolean batchEnabled,
+                               @Value("${bot.assistant.batch.max-size:16}") int batchMaxSize,
+                               @Value("${bot.assistant.batch.window:20ms}") Duration batchWindow) {
+        this.persistenceService = persistenceService;
         this.messagingTemplate = messagingTemplate;
-        this.webClientBuilder = webClientBuilder;
+        this.botAssistantWebClient = botAssistantWebClient;
+        this.maxConcurrency = maxConcurrency;
+        this.batchEnabled = batchEnabled;
+        this.batchMaxSize = batchMaxSize;
+        this.batchWindow = batchWindow;
+        this.fallbackOnOverflow = !"drop".equalsIgnoreCase(overflowPolicy);
+        this.queue = Sinks.many().unicast().onBackpressureBuffer(Queues.<PendingMessage>get(queueCapacity).get());
+        this.persistenceScheduler = Schedulers.newBoundedElastic(persistenceThreads,
+                Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE, "bot-persistence");
+        Gauge.builder("bot.assistant.pipeline.queued", queued, AtomicInteger::get)
+                .register(meterRegistry);
+        Gauge.builder("bot.assistant.pipeline.in-flight", inFlight, AtomicInteger::get)
+                .register(meterRegistry);
+        this.queueWait = Timer.builder("bot.assistant.pipeline.queue-wait")
+                .register(meterRegistry);
+        this.responseLatency = Timer.builder("bot.assistant.pipeline.latency")
+                .tag("outcome", "response")
+                .register(meterRegistry);
+        this.fallbackLatency = Timer.builder("bot.assistant.pipeline.latency")
+                .tag("outcome", "fallback")
+                .register(meterRegistry);
+        this.overflow = Counter.builder("bot.assistant.pipeline.overflow")
+                .tag("policy", fallbackOnOverflow ? "fallback" : "drop")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Start consuming queued messages.
+     */
+    @PostConstruct
+    public void start() {
+        if (batchEnabled && !streamingEnabled) {
+            // Keep at most maxConcurrency messages in flight, counted across batches
+            pipeline = queue.asFlux()
+                    .bufferTimeout(batchMaxSize, batchWindow, true)
+                    .flatMap(this::handleBatch, Math.max(1, maxConcurrency / batchMaxSize))
+                    .subscribe();
+        } else {
+            pipeline = queue.asFlux()
+                    .flatMap(this::handle, maxConcurrency)
+                    .subscribe();
+        }
+    }
+
+    /**
+     * Stop consuming queued messages and release the persistence scheduler.
+     */
+    @PreDestroy
+    public void stop() {
+        queue.tryEmitComplete();
+        if (pipeline != null) {
+            pipeline.dispose();
+        }
+        persistenceScheduler.dispose();
     }
 
     /**
      * Process a chat message with the bot assistant.
-     * This method is executed asynchronously to avoid blocking the WebSocket thread.
+     * The message is only queued here, so the WebSocket thread is never blocked.
+     * It must already be persisted with {@code processedByBot} set; the bot never writes it again.
      *
      * @param message the message to process
      */
-    @Async
     public void processMessage(ChatMessage message) {
         log.info("Processing message with bot assistant: {}", message.getContent());
-        log.debug("Bot assistant URL: {}", botAssistantUrl);
         log.debug("Message details: id={}, sessionId={}, type={}, sender={}",
                 message.getId(), message.getSessionId(), message.getType(), message.getSenderName());
 
-        // Mark the message as being processed by the bot
-        message.setProcessedByBot(true);
-        chatMessageRepository.save(message);
+        Sinks.EmitResult result;
+        queued.incrementAndGet();
+        // A unicast sink only accepts one producer at a time
+        synchronized (queue) {
+            result = queue.tryEmitNext(new PendingMessage(message, System.nanoTime()));
+        }
+        if (result.isSuccess()) {
+            return;
+        }
+        queued.decrementAndGet();
+        overflow.increment();
+        log.warn("Bot assistant queue is full ({}), {} message {}", result,
+                fallbackOnOverflow ? "answering with fallback for" : "dropping", message.getId());
+        if (fallbackOnOverflow) {
+            Mono.fromRunnable(() -> publish(message, fallbackMessage(message)))
+                    .subscribeOn(persistenceScheduler)
+                    .subscribe();
+        }
+    }
+
+    /**
+     * Run one queued message through the bot assistant and publish the answer.
+     */
+    private Mono<Void> handle(PendingMessage pending) {
+        ChatMessage message = pending.message();
+        dequeue(pending);
+
+        Mono<ChatMessage> botResponse = streamingEnabled
+                ? streamResponse(message)
+                : requestResponse(message);
+
+        return botResponse.map(response -> new Answer(response, responseLatency))
+                .onErrorResume(e -> {
+                    log.error("Error processing message with bot assistant", e);
+                    return Mono.just(new Answer(fallbackMessage(message), fallbackLatency));
+                })
+                .publishOn(persistenceScheduler)
+                .doOnNext(answer -> {
+                    publish(message, answer.response());
+                    answer.latency().record(System.nanoTime() - pending.enqueuedAt(), TimeUnit.NANOSECONDS);
+                })
+                .onErrorResume(e -> {
+                    log.error("Error publishing bot response for message: {}", message.getId(), e);
+                    return Mono.empty();
+                })
+                .doFinally(signal -> inFlight.decrementAndGet())
+                .then();
+    }
+
+    /**
+     * Run a micro-batch of queued messages through the bot assistant in one request and publish the answers.
+     */
+    private Mono<Void> handleBatch(List<PendingMessage> batch) {
+        if (batch.size() == 1) {
+            return handle(batch.getFirst());
+        }
+        List<ChatMessage> messages = batch.stream().map(PendingMessage::message).toList();
+        batch.forEach(this::dequeue);
+
+        return requestResponses(messages)
+                .map(responses -> responses.stream()
+                        .map(response -> new Answer(response, responseLatency))
+                        .toList())
+                .onErrorResume(e -> {
+                    log.error("Error processing batch of {} messages with bot assistant", messages.size(), e);
+                    return Mono.just(messages.stream()
+                            .map(message -> new Answer(fallbackMessage(message), fallbackLatency))
+                            .toList());
+                })
+                .publishOn(persistenceScheduler)
+                .doOnNext(answers -> {
+                    for (int i = 0; i < batch.size(); i++) {
+                        publish(messages.get(i), answers.get(i).response());
+                        answers.get(i).latency().record(System.nanoTime() - batch.get(i).enqueuedAt(), TimeUnit.NANOSECONDS);
+                    }
+                })
+                .onErrorResume(e -> {
+                    log.error("Error publishing bot responses for batch of {} messages", messages.size(), e);
+                    return Mono.empty();
+                })
+                .doFinally(signal -> inFlight.addAndGet(-batch.size()))
+                .then();
+    }
+
+    /**
+     * Account for a message leaving the queue.
+     */
+    private void dequeue(PendingMessage pending) {
+        queued.decrementAndGet();
+        inFlight.incrementAndGet();
+        queueWait.record(System.nanoTime() - pending.enqueuedAt(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Save a bot response and send it to the session topic.
+     */
+    private void publish(ChatMessage message, ChatMessage response) {
+        log.debug("Processing bot response: {}", response);
+
+        // Save the bot response
+        ChatMessage savedBotResponse = persistenceService.persist(response);
+        log.debug("Saved bot response: {}", savedBotResponse);
+
+        // Send the bot response to the WebSocket topic
+        String destination = "/topic/chat/" + message.getSessionId();
+        log.debug("Sending bot response to WebSocket topic: {}", destination);
+
+        try {
+            if (streamingEnabled) {
+                messagingTemplate.convertAndSend(destination, savedBotResponse, streamHeaders(message, STREAM_COMPLETE));
+            } else {
+                messagingTemplate.convertAndSend(destination, savedBotResponse);
+            }
+            log.info("Bot response sent for message: {}", message.getId());
+        } catch (Exception e) {
+            log.error("Error sending bot response to WebSocket topic", e);
+        }
+    }
 
-        // Create a request to the bot assistant
-        WebClient webClient = webClientBuilder.baseUrl(botAssistantUrl).build();
-        log.debug("Sending request to bot assistant at {}/api/bot/process", botAssistantUrl);
+    /**
+     * Create the message sent when the bot assistant cannot answer.
+     */
+    private static ChatMessage fallbackMessage(ChatMessage message) {
+        ChatMessage botMessage = new ChatMessage();
+        botMessage.setSessionId(message.getSessionId());
+        botMessage.setType(ChatMessage.MessageType.BOT);
+        botMessage.setSenderId("bot");
+        botMessage.setSenderName("Bot Assistant");
+        botMessage.setContent("Sorry, I'm currently unavailable. Please try again later.");
+        botMessage.setTimestamp(LocalDateTime.now());
+        return botMessage;
+    }
+
+    /**
+     * Request the complete bot response in a single call.
+     *
+     * @param message the message to process
+     * @return the bot response
+     */
+    private Mono<ChatMessage> requestResponse(ChatMessage message) {
+        log.debug("Sending request to bot assistant at /api/bot/process");
 
-        webClient.post()
+        return botAssistantWebClient.post()
                 .uri("/api/bot/process")
                 .bodyValue(message)
                 .retrieve()
                 .bodyToMono(ChatMessage.class)
                 .timeout(Duration.ofSeconds(10))
-                .doOnSuccess(response -> {
-                    log.debug("Received successful response from bot assistant: {}", response);
-                })
-                .onErrorResume(e -> {
-                    log.error("Error processing message with bot assistant", e);
-                    // Create a fallback message in case of error
-                    ChatMessage botMessage = new ChatMessage();
-                    botMessage.setSessionId(message.getSessionId());
-                    botMessage.setType(ChatMessage.MessageType.BOT);
-                    botMessage.setSenderId("bot");
-                    botMessage.setSenderName("Bot Assistant");
-                    botMessage.setContent("Sorry, I'm currently unavailable. Please try again later.");
-                    botMessage.setTimestamp(LocalDateTime.now());
-                    return Mono.just(botMessage);
-                })
-                .subscribe(botResponse -> {
-                    log.debug("Processing bot response: {}", botResponse);
-
-                    // Save the bot response
-                    ChatMessage savedBotResponse = chatMessageRepository.save(botResponse);
-                    log.debug("Saved bot response: {}", savedBotResponse);
-
-                    // Send the bot response to the WebSocket topic
-                    String destination = "/topic/chat/" + message.getSessionId();
-                    log.debug("Sending bot response to WebSocket topic: {}", destination);
-
-                    try {
-                        messagingTemplate.convertAndSend(destination, savedBotResponse);
-                        log.info("Bot response sent for message: {}", message.getId());
-                    } catch (Exception e) {
-                        log.error("Error sending bot response to WebSocket topic", e);
+                .doOnSuccess(response -> log.debug("Received successful response from bot assistant: {}", response));
+    }
+
+    /**
+     * Request the complete bot responses for several messages in a single call.
+     *
+     * @param messages the messages to process
+     * @return the bot responses, in the order of the messages
+     */
+    private Mono<List<ChatMessage>> requestResponses(List<ChatMessage> messages) {
+        log.debug("Sending batch of {} messages to bot assistant at /api/bot/process/batch", messages.size());
+
+        return botAssistantWebClient.post()
+                .uri("/api/bot/process/batch")
+                .bodyValue(messages)
+                .retrieve()
+                .bodyToFlux(ChatMessage.class)
+                .collectList()
+                .timeout(Duration.ofSeconds(10))
+                .flatMap(responses -> responses.size() == messages.size()
+                        ? Mono.just(responses)
+                        : Mono.error(new IllegalStateException("Bot assistant returned " + responses.size()
+                                + " responses for " + messages.size() + " messages")));
+    }
+
+    /**
+     * Stream the bot response, relaying each delta to the session topic as it arrives.
+     * Deltas are only broadcast; the complete response is returned for persistence.
+     *
+     * @param message the message to process
+     * @return the complete bot response
+     */
+    private Mono<ChatMessage> streamResponse(ChatMessage message) {
+        log.debug("Sending streaming request to bot assistant at /api/bot/process/stream");
+        String destination = "/topic/chat/" + message.getSessionId();
+
+        return botAssistantWebClient.post()
+                .uri("/api/bot/process/stream")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .bodyValue(message)
+                .retrieve()
+                .bodyToFlux(SSE_MESSAGE_TYPE)
+                // The timeout applies between events, so long answers are not cut off
+                .timeout(Duration.ofSeconds(10))
+                .doOnNext(event -> {
+                    if (DELTA_EVENT.equals(event.event()) && event.data() != null) {
+                        messagingTemplate.convertAndSend(destination, event.data(), streamHeaders(message, STREAM_DELTA));
                     }
-                });
+                })
+                .filter(event -> COMPLETE_EVENT.equals(event.event()) && event.data() != null)
+                .map(ServerSentEvent::data)
+                .next()
+                .switchIfEmpty(Mono.error(new IllegalStateException("Bot assistant stream ended without a complete response")))
+                .doOnSuccess(response -> log.debug("Received streamed response from bot assistant: {}", response));
+    }
+
+    /**
+     * Create the STOMP headers that let clients assemble a streamed bot response.
+     *
+     * @param message the message the bot is responding to
+     * @param state   the stream state, either {@value #STREAM_DELTA} or {@value #STREAM_COMPLETE}
+     * @return the headers
+     */
+    private Map<String, Object> streamHeaders(ChatMessage message, String state) {
+        return Map.of(
+                STREAM_HEADER, state,
+                STREAM_ID_HEADER, message.getId() != null ? message.getId() : "");
+    }
+
+    private record PendingMessage(ChatMessage message, long enqueuedAt) {
+    }
+
+    private record Answer(ChatMessage response, Timer latency) {
     }
 }
@@ -0,0 +1,366 @@
+/*
+ * Copyright © 2025 BellSoft (info@bell-sw.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.asm0dey.chatapi.service;
+
+import com.github.asm0dey.chatapi.model.ChatMessage;
+import com.github.asm0dey.chatapi.repository.ChatMessageRepository;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoInterruptedException;
+import com.mongodb.WriteConcern;
+import com.mongodb.client.model.InsertManyOptions;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Persists chat messages either synchronously or through a write-behind buffer.
+ * <p>
+ * In {@code write-behind} mode a message gets its {@link ObjectId} on the caller thread and is
+ * returned immediately, so it can be broadcast before it reaches MongoDB. Pending messages wait
+ * in a bounded buffer and a single flusher thread writes them with unordered {@code insertMany}
+ * calls once {@code batch-size} messages are collected or {@code flush-interval} elapses.
+ * The overflow policy decides what happens when the buffer is full: {@code caller-runs} writes
+ * the message on the caller thread, {@code block} waits up to {@code offer-timeout} for space
+ * and {@code drop} discards the message. Whatever is still buffered is flushed on shutdown.
+ */
+@Service
+public class ChatMessagePersistenceService {
+    private static final Logger log = LoggerFactory.getLogger(ChatMessagePersistenceService.class);
+
+    private final ChatMessageRepository chatMessageRepository;
+    private final MongoTemplate mongoTemplate;
+    private final RecentMessageBuffer recentMessages;
+    private final boolean writeBehind;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final OverflowPolicy overflowPolicy;
+    private final Duration offerTimeout;
+    private final WriteConcern writeConcern;
+    private final int maxRetries;
+    private final BlockingQueue<ChatMessage> buffer;
+    private final Queue<ChatMessage> unflushed = new ConcurrentLinkedQueue<>();
+    private final Counter flushed;
+    private final Counter dropped;
+    private final Counter callerRuns;
+
+    private final ReadWriteLock stopLock = new ReentrantReadWriteLock();
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public ChatMessagePersistenceService(ChatMessageRepository chatMessageRepository,
+                                         MongoTemplate mongoTemplate,
+                                         RecentMessageBuffer recentMessages,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${chat.persistence.mode:sync}") String mode,
+                                         @Value("${chat.persistence.buffer-capacity:8192}") int bufferCapacity,
+                                         @Value("${chat.persistence.batch-size:500}") int batchSize,
+                                         @Value("${chat.persistence.flush-interval:50ms}") Duration flushInterval,
+                                         @Value("${chat.persistence.overflow-policy:caller-runs}") String overflowPolicy,
+                                         @Value("${chat.persistence.offer-timeout:1s}") Duration offerTimeout,
+                                         @Value("${chat.persistence.write-concern:acknowledged}") String writeConcern,
+                                         @Value("${chat.persistence.max-retries:3}") int maxRetries) {
+        this.chatMessageRepository = chatMessageRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.recentMessages = recentMessages;
+        this.writeBehind = "write-behind".equalsIgnoreCase(mode);
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.overflowPolicy = OverflowPolicy.valueOf(overflowPolicy.replace('-', '_').toUpperCase(Locale.ROOT));
+        this.offerTimeout = offerTimeout;
+        this.writeConcern = WriteConcern.valueOf(writeConcern.replace('-', '_').toUpperCase(Locale.ROOT));
+        if (this.writeConcern == null) {
+            throw new IllegalArgumentException("Unknown write concern: " + writeConcern);
+        }
+        this.maxRetries = maxRetries;
+        this.buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        this.flushed = Counter.builder("chat.persistence.messages")
+                .tag("result", "flushed")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("chat.persistence.messages")
+                .tag("result", "dropped")
+                .register(meterRegistry);
+        this.callerRuns = Counter.builder("chat.persistence.messages")
+                .tag("result", "caller-runs")
+                .register(meterRegistry);
+        Gauge.builder("chat.persistence.buffer.size", buffer, BlockingQueue::size)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Start the flusher thread when write-behind is enabled.
+     */
+    @PostConstruct
+    public void start() {
+        if (!writeBehind) {
+            return;
+        }
+        running = true;
+        flusher = Thread.ofPlatform()
+                .name("chat-persistence-flusher")
+                .daemon(true)
+                .start(this::flushLoop);
+        log.info("Write-behind persistence enabled: batchSize={}, flushInterval={}, overflowPolicy={}, writeConcern={}",
+                batchSize, flushInterval, overflowPolicy, writeConcern);
+    }
+
+    /**
+     * Persist a chat message and append it to the {@link RecentMessageBuffer}.
+     * In write-behind mode the message is only assigned an id and queued for the next flush.
+     *
+     * @param message the message to persist
+     * @return the persisted message, with its id assigned
+     */
+    public ChatMessage persist(ChatMessage message) {
+        ChatMessage persisted = write(message);
+        recentMessages.append(persisted);
+        return persisted;
+    }
+
+    private ChatMessage write(ChatMessage message) {
+        if (!writeBehind) {
+            return chatMessageRepository.save(message);
+        }
+        if (message.getId() == null) {
+            message.setId(new ObjectId().toHexString());
+        }
+        if (message.getTimestamp() == null) {
+            message.setTimestamp(LocalDateTime.now());
+        }
+        if (enqueue(message)) {
+            return message;
+        }
+        if (!running) {
+            return chatMessageRepository.save(message);
+        }
+        switch (overflowPolicy) {
+            case CALLER_RUNS -> callerRuns.increment();
+            case BLOCK -> {
+                log.warn("Write-behind buffer still full after {}, writing message {} directly", offerTimeout, message.getId());
+                callerRuns.increment();
+            }
+            default -> {
+                dropped.increment();
+                log.warn("Write-behind buffer full, dropping message {}", message.getId());
+                return message;
+            }
+        }
+        return chatMessageRepository.save(message);
+    }
+
+    /**
+     * Queue a message for the flusher, waiting for space under the {@code block} policy.
+     * Holds the shared side of {@link #stopLock}, so {@link #stop()} cannot drain the buffer
+     * for the last time while a message is still being queued.
+     *
+     * @return false if the buffer is full or the flusher is stopped
+     */
+    private boolean enqueue(ChatMessage message) {
+        stopLock.readLock().lock();
+        try {
+            if (!running) {
+                return false;
+            }
+            if (buffer.offer(message)) {
+                return true;
+            }
+            if (overflowPolicy == OverflowPolicy.BLOCK) {
+                return buffer.offer(message, offerTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            }
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            stopLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of messages waiting to be flushed.
+     *
+     * @return the buffer size
+     */
+    public int pending() {
+        return buffer.size();
+    }
+
+    /**
+     * Stop the flusher and write whatever is still buffered.
+     */
+    @PreDestroy
+    public void stop() {
+        stopLock.writeLock().lock();
+        try {
+            if (!running) {
+                return;
+            }
+            running = false;
+        } finally {
+            stopLock.writeLock().unlock();
+        }
+        // Not interrupted: an interrupt would abort the insertMany of the batch being written
+        try {
+            flusher.join(flushInterval.plusSeconds(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<ChatMessage> batch = new ArrayList<>(batchSize);
+        for (ChatMessage message; (message = unflushed.poll()) != null; ) {
+            batch.add(message);
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+            batch.clear();
+        }
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void flushLoop() {
+        List<ChatMessage> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                ChatMessage first = buffer.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushInterval.toNanos();
+                while (batch.size() < batchSize) {
+                    buffer.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    ChatMessage next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Interrupted from outside: write the current batch, leave the rest to stop()
+                Thread.currentThread().interrupt();
+            }
+            if (!batch.isEmpty() && !write(batch)) {
+                unflushed.addAll(batch);
+            }
+            batch.clear();
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Write a batch with an unordered insertMany, retrying transient failures.
+     * Duplicate key errors mean the message is already stored and are not retried.
+     *
+     * @return false if the write was interrupted and the batch may not be stored
+     */
+    private boolean write(List<ChatMessage> batch) {
+        String collection = mongoTemplate.getCollectionName(ChatMessage.class);
+        List<Document> documents = new ArrayList<>(batch.size());
+        for (ChatMessage message : batch) {
+            Document document = new Document();
+            mongoTemplate.getConverter().write(message, document);
+            documents.add(document);
+        }
+        try {
+            for (int attempt = 0; ; attempt++) {
+                try {
+                    mongoTemplate.getCollection(collection)
+                            .withWriteConcern(writeConcern)
+                            .insertMany(documents, new InsertManyOptions().ordered(false));
+                    flushed.increment(documents.size());
+                    return true;
+                } catch (MongoBulkWriteException e) {
+                    boolean onlyDuplicates = e.getWriteErrors().stream()
+                            .allMatch(error -> ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY);
+                    if (onlyDuplicates) {
+                        flushed.increment(documents.size() - e.getWriteErrors().size());
+                        return true;
+                    }
+                    if (!retry(attempt, documents.size(), e)) {
+                        return true;
+                    }
+                } catch (MongoInterruptedException e) {
+                    throw new InterruptedException(e.getMessage());
+                } catch (RuntimeException e) {
+                    if (!retry(attempt, documents.size(), e)) {
+                        return true;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while flushing {} chat messages, leaving them to shutdown", documents.size());
+            return false;
+        }
+    }
+
+    /**
+     * Wait before the next attempt, or give up once {@code max-retries} is reached.
+     *
+     * @return false if the batch was dropped
+     * @throws InterruptedException if interrupted while waiting; the batch is not dropped
+     */
+    private boolean retry(int attempt, int size, RuntimeException e) throws InterruptedException {
+        if (attempt >= maxRetries) {
+            dropped.increment(size);
+            log.error("Failed to flush {} chat messages after {} attempts", size, attempt + 1, e);
+            return false;
+        }
+        log.warn("Failed to flush {} chat messages, retrying: {}", size, e.getMessage());
+        Thread.sleep(100L << attempt);
+        return true;
+    }
+
+    /**
+     * What to do with a message when the write-behind buffer is full.
+     */
+    enum OverflowPolicy {
+        CALLER_RUNS,
+        BLOCK,
+        DROP
+    }
+}
@@ -0,0 +1,364 @@
+/*
+ * Copyright © 2025 BellSoft (info@bell-sw.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.asm0dey.chatapi.service;
+
+import com.github.asm0dey.chatapi.model.ChatSession;
+import com.github.asm0dey.chatapi.repository.ChatSessionRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.messaging.ChangeStreamRequest;
+import org.springframework.data.mongodb.core.messaging.Message;
+import org.springframework.data.mongodb.core.messaging.MessageListenerContainer;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.data.util.Pair;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps session reads and per-message session bookkeeping off the MongoDB hot path.
+ * <p>
+ * Sessions are cached in-process by id, next to an index from participant to session ids, so
+ * repeated reads never leave the JVM. Writes made through this replica update the cache directly;
+ * writes made anywhere else arrive through a change stream on the {@code sessions} collection and
+ * invalidate the affected entries. Change streams need a replica set; on a standalone server the
+ * entries simply expire after {@code expire-after-write}.
+ * <p>
+ * A missing session is created with a single upsert instead of a find followed by a save. Bumps of
+ * {@code lastMessageAt} are coalesced in memory and written with a {@code $max} update at most
+ * once per session per flush interval, so the participants array is never rewritten.
+ * <p>
+ * Cached sessions are never handed out or modified in place: readers get copies, and changes
+ * replace the cached entry.
+ */
+@Service
+public class ChatSessionService {
+    private static final Logger log = LoggerFactory.getLogger(ChatSessionService.class);
+    private static final String LAST_MESSAGE_AT = "lastMessageAt";
+
+    private final MongoTemplate mongoTemplate;
+    private final ChatSessionRepository chatSessionRepository;
+    private final MessageListenerContainer messageListenerContainer;
+    private final boolean changeStreamEnabled;
+    private final Cache<String, Optional<ChatSession>> sessionCache;
+    private final Cache<String, List<String>> participantIndex;
+    private final Map<String, LocalDateTime> pendingLastMessageAt = new ConcurrentHashMap<>();
+
+    public ChatSessionService(MongoTemplate mongoTemplate,
+                              ChatSessionRepository chatSessionRepository,
+                              MessageListenerContainer messageListenerContainer,
+                              MeterRegistry meterRegistry,
+                              @Value("${chat.session.cache.maximum-size:10000}") long maximumSize,
+                              @Value("${chat.session.cache.expire-after-write:5m}") Duration expireAfterWrite,
+                              @Value("${chat.session.cache.change-stream-enabled:true}") boolean changeStreamEnabled) {
+        this.mongoTemplate = mongoTemplate;
+        this.chatSessionRepository = chatSessionRepository;
+        this.messageListenerContainer = messageListenerContainer;
+        this.changeStreamEnabled = changeStreamEnabled;
+        this.sessionCache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.participantIndex = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, sessionCache, "chat.sessions");
+        CaffeineCacheMetrics.monitor(meterRegistry, participantIndex, "chat.sessions.participants");
+        Gauge.builder("chat.session.last-message.pending", pendingLastMessageAt, Map::size)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Subscribe to changes of the {@code sessions} collection made by other replicas.
+     */
+    @PostConstruct
+    public void subscribe() {
+        if (!changeStreamEnabled) {
+            return;
+        }
+        ChangeStreamRequest<Document> request = ChangeStreamRequest.builder(this::onSessionChange)
+                .collection(mongoTemplate.getCollectionName(ChatSession.class))
+                .fullDocumentLookup(FullDocument.UPDATE_LOOKUP)
+                .build();
+        messageListenerContainer.register(request, Document.class, e -> {
+            log.warn("Session change stream failed, cached sessions now rely on expiry: {}", e.getMessage());
+            invalidateAll();
+        });
+    }
+
+    /**
+     * Find a session by id.
+     *
+     * @param sessionId the session ID
+     * @return a copy of the session, or empty if it does not exist
+     */
+    public Optional<ChatSession> findById(String sessionId) {
+        return sessionCache.get(sessionId, chatSessionRepository::findById).map(ChatSessionService::copyOf);
+    }
+
+    /**
+     * Find the sessions a user participates in.
+     *
+     * @param participant the participant as stored in {@link ChatSession#getParticipants()}
+     * @return copies of the sessions of the participant
+     */
+    public List<ChatSession> findByParticipant(String participant) {
+        List<String> ids = participantIndex.get(participant, this::loadParticipant);
+        Map<String, Optional<ChatSession>> sessions = sessionCache.getAll(ids, this::loadSessions);
+        // Index entries may briefly list sessions the participant has left, so check membership
+        return ids.stream()
+                .map(sessions::get)
+                .flatMap(Optional::stream)
+                .filter(session -> session.getParticipants() != null
+                        && session.getParticipants().contains(participant))
+                .map(ChatSessionService::copyOf)
+                .toList();
+    }
+
+    /**
+     * Get the metadata of a session, creating the session if it does not exist yet.
+     *
+     * @param sessionId the session ID
+     * @param username  the user sending the message, or {@code null} if anonymous
+     * @return the session metadata
+     */
+    public SessionMetadata resolveSession(String sessionId, String username) {
+        Optional<ChatSession> session = sessionCache.get(sessionId, id -> Optional.of(upsertSession(id, username)));
+        if (session.isEmpty()) {
+            session = Optional.of(upsertSession(sessionId, username));
+            sessionCache.put(sessionId, session);
+        }
+        return new SessionMetadata(sessionId, session.get().isBotEnabled());
+    }
+
+    /**
+     * Record that a message was posted to a session.
+     * The new {@code lastMessageAt} is written on the next flush.
+     *
+     * @param sessionId the session ID
+     * @param timestamp the message timestamp
+     */
+    public void recordMessage(String sessionId, LocalDateTime timestamp) {
+        pendingLastMessageAt.merge(sessionId, timestamp, (a, b) -> a.isAfter(b) ? a : b);
+    }
+
+    /**
+     * Update the cache after a session was saved through this replica.
+     *
+     * @param session the saved session
+     */
+    public void sessionSaved(ChatSession session) {
+        invalidateParticipants(sessionCache.getIfPresent(session.getId()));
+        invalidateParticipants(Optional.of(session));
+        sessionCache.put(session.getId(), Optional.of(copyOf(session)));
+    }
+
+    /**
+     * Update the cache after a session was deleted through this replica.
+     *
+     * @param sessionId the session ID
+     */
+    public void sessionDeleted(String sessionId) {
+        invalidate(sessionId);
+    }
+
+    /**
+     * Write the coalesced {@code lastMessageAt} values in one unordered bulk operation.
+     */
+    @Scheduled(fixedDelayString = "${chat.session.last-message-flush-interval:1s}")
+    @PreDestroy
+    public void flushLastMessageAt() {
+        if (pendingLastMessageAt.isEmpty()) {
+            return;
+        }
+        Map<String, LocalDateTime> batch = new HashMap<>();
+        for (String sessionId : List.copyOf(pendingLastMessageAt.keySet())) {
+            LocalDateTime timestamp = pendingLastMessageAt.remove(sessionId);
+            if (timestamp != null) {
+                batch.put(sessionId, timestamp);
+            }
+        }
+        List<Pair<Query, UpdateDefinition>> updates = new ArrayList<>(batch.size());
+        batch.forEach((sessionId, timestamp) -> updates.add(Pair.of(
+                Query.query(Criteria.where("id").is(sessionId)),
+                new Update().max(LAST_MESSAGE_AT, timestamp))));
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ChatSession.class)
+                    .updateOne(updates)
+                    .execute();
+            log.debug("Flushed lastMessageAt for {} sessions", updates.size());
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush lastMessageAt for {} sessions, retrying on next flush", updates.size(), e);
+            batch.forEach(this::recordMessage);
+        }
+    }
+
+    /**
+     * Apply a change event from the {@code sessions} collection to the cache.
+     */
+    void onSessionChange(Message<ChangeStreamDocument<Document>, Document> message) {
+        ChangeStreamDocument<Document> event = message.getRaw();
+        if (event == null || event.getDocumentKey() == null) {
+            // drop, rename or invalidate: nothing cached can be trusted any more
+            invalidateAll();
+            return;
+        }
+        String sessionId = idOf(event.getDocumentKey().get("_id"));
+        Document fullDocument = event.getFullDocument();
+        switch (event.getOperationType()) {
+            case UPDATE -> {
+                if (onlyLastMessageAtChanged(event)) {
+                    // The coalesced $max flush: replace the cached session with an updated copy instead of reloading it
+                    Object lastMessageAt = fullDocument != null ? fullDocument.get(LAST_MESSAGE_AT) : null;
+                    if (lastMessageAt instanceof Date date) {
+                        sessionCache.asMap().computeIfPresent(sessionId, (id, cached) -> cached.map(session -> {
+                            ChatSession updated = copyOf(session);
+                            updated.setLastMessageAt(LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault()));
+                            return updated;
+                        }));
+                    }
+                    return;
+                }
+                invalidate(sessionId);
+                invalidateParticipants(fullDocument);
+            }
+            case INSERT, REPLACE -> {
+                invalidate(sessionId);
+                invalidateParticipants(fullDocument);
+            }
+            case DELETE -> invalidate(sessionId);
+            default -> invalidateAll();
+        }
+    }
+
+    private static boolean onlyLastMessageAtChanged(ChangeStreamDocument<Document> event) {
+        var description = event.getUpdateDescription();
+        return description != null
+                && (description.getRemovedFields() == null || description.getRemovedFields().isEmpty())
+                && description.getUpdatedFields() != null
+                && description.getUpdatedFields().keySet().equals(Set.of(LAST_MESSAGE_AT));
+    }
+
+    private static ChatSession copyOf(ChatSession session) {
+        return new ChatSession(session.getId(), session.getName(), session.getDescription(), session.getCreatedBy(),
+                session.getParticipants() != null ? new ArrayList<>(session.getParticipants()) : null,
+                session.isActive(), session.getCreatedAt(), session.getUpdatedAt(), session.getLastMessageAt(),
+                session.isPrivate(), session.isBotEnabled());
+    }
+
+    private static String idOf(BsonValue id) {
+        return id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.asString().getValue();
+    }
+
+    private void invalidate(String sessionId) {
+        invalidateParticipants(sessionCache.getIfPresent(sessionId));
+        sessionCache.invalidate(sessionId);
+    }
+
+    private void invalidateAll() {
+        sessionCache.invalidateAll();
+        participantIndex.invalidateAll();
+    }
+
+    private void invalidateParticipants(Optional<ChatSession> session) {
+        if (session != null && session.isPresent() && session.get().getParticipants() != null) {
+            participantIndex.invalidateAll(session.get().getParticipants());
+        }
+    }
+
+    private void invalidateParticipants(Document session) {
+        if (session != null && session.get("participants") instanceof List<?> participants) {
+            participants.forEach(participant -> participantIndex.invalidate(String.valueOf(participant)));
+        }
+    }
+
+    private List<String> loadParticipant(String participant) {
+        List<ChatSession> sessions = chatSessionRepository.findByParticipant(participant);
+        sessions.forEach(session -> sessionCache.put(session.getId(), Optional.of(session)));
+        return sessions.stream().map(ChatSession::getId).toList();
+    }
+
+    private Map<String, Optional<ChatSession>> loadSessions(Set<? extends String> ids) {
+        Map<String, Optional<ChatSession>> loaded = new HashMap<>();
+        ids.forEach(id -> loaded.put(id, Optional.empty()));
+        chatSessionRepository.findAllById(List.copyOf(ids)).forEach(session -> loaded.put(session.getId(), Optional.of(session)));
+        return loaded;
+    }
+
+    private ChatSession upsertSession(String sessionId, String username) {
+        LocalDateTime now = LocalDateTime.now();
+        List<String> participants = new ArrayList<>();
+        if (username != null) {
+            participants.add(username);
+            participantIndex.invalidate(username);
+        }
+        Query query = Query.query(Criteria.where("id").is(sessionId));
+        Update update = new Update()
+                .setOnInsert("name", "Chat Session")
+                .setOnInsert("description", "Automatically created chat session")
+                .setOnInsert("createdBy", username != null ? username : "system")
+                .setOnInsert("participants", participants)
+                .setOnInsert("isActive", true)
+                .setOnInsert("createdAt", now)
+                .setOnInsert("updatedAt", now)
+                .setOnInsert(LAST_MESSAGE_AT, now)
+                .setOnInsert("isPrivate", false)
+                .setOnInsert("botEnabled", true);
+        return mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().upsert(true).returnNew(true), ChatSession.class);
+    }
+
+    /**
+     * The parts of a session needed to route a chat message.
+     *
+     * @param id         the session ID
+     * @param botEnabled whether the bot assistant answers in this session
+     */
+    public record SessionMetadata(String id, boolean botEnabled) {
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright © 2025 BellSoft (info@bell-sw.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.asm0dey.chatapi.service;
+
+import com.github.asm0dey.chatapi.model.ChatMessage;
+import com.github.asm0dey.chatapi.model.MessageCursor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Keeps the last messages of each active session in memory, so history reloads skip MongoDB.
+ * <p>
+ * Every message persisted by this replica is appended to its session's ring buffer, which keeps the
+ * newest {@code messages-per-session}. A buffer knows the point from which it holds every message of
+ * its session, and a query is answered from it only when the requested range lies entirely after
+ * that point; otherwise the caller falls back to MongoDB.
+ * <p>
+ * Buffers are weighed by their message count against a global {@code max-messages} bound, and
+ * sessions idle for {@code idle-timeout} are evicted. With {@code chat.broker.mode=relay} other replicas
+ * persist messages of the same sessions, so no buffer is ever complete and the buffer is disabled.
+ */
+@Service
+public class RecentMessageBuffer {
+    private static final Logger log = LoggerFactory.getLogger(RecentMessageBuffer.class);
+
+    /**
+     * Order of history queries: by timestamp at the millisecond precision MongoDB stores, then by ID.
+     * Hexadecimal ObjectIds of equal length sort like the ObjectIds themselves.
+     */
+    private static final Comparator<ChatMessage> HISTORY_ORDER = Comparator
+            .comparing((ChatMessage message) -> truncate(message.getTimestamp()))
+            .thenComparing(ChatMessage::getId);
+
+    private final boolean enabled;
+    private final int messagesPerSession;
+    private final Cache<String, SessionBuffer> buffers;
+    private final Counter hits;
+    private final Counter misses;
+
+    public RecentMessageBuffer(MeterRegistry meterRegistry,
+                               @Value("${chat.history.buffer.enabled:true}") boolean enabled,
+                               @Value("${chat.broker.mode:simple}") String brokerMode,
+                               @Value("${chat.history.buffer.messages-per-session:200}") int messagesPerSession,
+                               @Value("${chat.history.buffer.max-messages:200000}") long maxMessages,
+                               @Value("${chat.history.buffer.idle-timeout:30m}") Duration idleTimeout) {
+        this.enabled = enabled && !"relay".equals(brokerMode);
+        if (enabled && !this.enabled) {
+            log.info("Recent message buffer disabled: with a broker relay other replicas write the same sessions");
+        }
+        this.messagesPerSession = messagesPerSession;
+        this.buffers = Caffeine.newBuilder()
+                .maximumWeight(maxMessages)
+                .<String, SessionBuffer>weigher((sessionId, buffer) -> buffer.size())
+                .expireAfterAccess(idleTimeout)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, buffers, "chat.history.buffer");
+        this.hits = Counter.builder("chat.history.buffer.queries").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("chat.history.buffer.queries").tag("result", "miss").register(meterRegistry);
+    }
+
+    /**
+     * Append a persisted message to its session's buffer.
+     *
+     * @param message the message, with its ID and timestamp assigned
+     */
+    public void append(ChatMessage message) {
+        if (!enabled || message.getSessionId() == null || message.getId() == null || message.getTimestamp() == null) {
+            return;
+        }
+        // compute() re-weighs the buffer after every append, so the global bound counts messages
+        buffers.asMap().compute(message.getSessionId(), (sessionId, buffer) -> {
+            SessionBuffer target = buffer != null ? buffer : new SessionBuffer(messagesPerSession, truncate(LocalDateTime.now()));
+            target.add(message);
+            return target;
+        });
+    }
+
+    /**
+     * Find the messages of a session newer than a timestamp, in history order.
+     *
+     * @param sessionId the session ID
+     * @param timestamp the timestamp to search after
+     * @return the messages, or empty if the buffer may not hold all of them
+     */
+    public Optional<List<ChatMessage>> findAfter(String sessionId, LocalDateTime timestamp) {
+        return query(sessionId, buffer -> buffer.findAfter(truncate(timestamp)));
+    }
+
+    /**
+     * Find messages of a session older than a cursor, newest first.
+     *
+     * @param sessionId the session ID
+     * @param before    the cursor to start after, or {@code null} to start from the newest message
+     * @param limit     the maximum number of messages
+     * @return the messages, or empty if the buffer may not hold all of them
+     */
+    public Optional<List<ChatMessage>> findBefore(String sessionId, MessageCursor before, int limit) {
+        return query(sessionId, buffer -> buffer.findBefore(before, limit));
+    }
+
+    /**
+     * Find messages of a session newer than a cursor, oldest first.
+     *
+     * @param sessionId the session ID
+     * @param after     the cursor to start after
+     * @param limit     the maximum number of messages
+     * @return the messages, or empty if the buffer may not hold all of them
+     */
+    public Optional<List<ChatMessage>> findAfter(String sessionId, MessageCursor after, int limit) {
+        return query(sessionId, buffer -> buffer.findAfter(after, limit));
+    }
+
+    private Optional<List<ChatMessage>> query(String sessionId,
+                                              Function<SessionBuffer, Optional<List<ChatMessage>>> query) {
+        SessionBuffer buffer = enabled ? buffers.getIfPresent(sessionId) : null;
+        Optional<List<ChatMessage>> messages = buffer == null ? Optional.empty() : query.apply(buffer);
+        (messages.isPresent() ? hits : misses).increment();
+        return messages;
+    }
+
+    private static LocalDateTime truncate(LocalDateTime timestamp) {
+        return timestamp.truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    private static int compare(ChatMessage message, MessageCursor cursor) {
+        int byTimestamp = truncate(message.getTimestamp()).compareTo(cursor.timestamp());
+        return byTimestamp != 0 ? byTimestamp : message.getId().compareTo(cursor.id());
+    }
+
+    /**
+     * Ring buffer of one session.
+     * Holds every message of the session with a timestamp after {@code completeAfter}.
+     */
+    private static final class SessionBuffer {
+        private final int capacity;
+        private final Deque<ChatMessage> messages;
+        private LocalDateTime completeAfter;
+
+        SessionBuffer(int capacity, LocalDateTime createdAt) {
+            this.capacity = capacity;
+            this.messages = new ArrayDeque<>(capacity);
+            // Messages persisted before the buffer existed are only in MongoDB
+            this.completeAfter = createdAt;
+        }
+
+        synchronized void add(ChatMessage message) {
+            if (messages.size() == capacity) {
+                LocalDateTime dropped = truncate(messages.removeFirst().getTimestamp());
+                if (dropped.isAfter(completeAfter)) {
+                    completeAfter = dropped;
+                }
+            }
+            messages.addLast(message);
+        }
+
+        synchronized int size() {
+            return messages.size();
+        }
+
+        synchronized Optional<List<ChatMessage>> findAfter(LocalDateTime timestamp) {
+            if (timestamp.isBefore(completeAfter)) {
+                return Optional.empty();
+            }
+            return Optional.of(messages.stream()
+                    .filter(message -> truncate(message.getTimestamp()).isAfter(timestamp))
+                    .sorted(HISTORY_ORDER)
+                    .toList());
+        }
+
+        synchronized Optional<List<ChatMessage>> findBefore(MessageCursor before, int limit) {
+            List<ChatMessage> newestFirst = messages.stream()
+                    .filter(message -> truncate(message.getTimestamp()).isAfter(completeAfter))
+                    .filter(message -> before == null || compare(message, before) < 0)
+                    .sorted(HISTORY_ORDER.reversed())
+                    .limit(limit)
+                    .toList();
+            // Fewer than requested means older messages may only be in MongoDB
+            return newestFirst.size() < limit ? Optional.empty() : Optional.of(newestFirst);
+        }
+
+        synchronized Optional<List<ChatMessage>> findAfter(MessageCursor after, int limit) {
+            // Messages sharing the cursor's timestamp must all be here too
+            if (!after.timestamp().isAfter(completeAfter)) {
+                return Optional.empty();
+            }
+            return Optional.of(messages.stream()
+                    .filter(message -> compare(message, after) > 0)
+                    .sorted(HISTORY_ORDER)
+                    .limit(limit)
+                    .toList());
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright © 2025 BellSoft (info@bell-sw.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.asm0dey.chatapi.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PartitionedExecutorTest {
+
+    @Test
+    void extractsChatSessionFromDestination() {
+        assertThat(PartitionedExecutor.partitionKey(message("/app/chat/room-1", "ws-1"))).isEqualTo("room-1");
+        assertThat(PartitionedExecutor.partitionKey(message("/app/chat/room-1/join", "ws-1"))).isEqualTo("room-1");
+        assertThat(PartitionedExecutor.partitionKey(message("/topic/chat/room-1", "ws-1"))).isEqualTo("ws-1");
+    }
+
+    @Test
+    void keepsPerSessionOrder() throws InterruptedException {
+        int sessions = 32;
+        int messagesPerSession = 500;
+        PartitionedExecutor executor = new PartitionedExecutor(8, Thread.ofPlatform().factory(), task -> task);
+        Map<String, List<Integer>> handled = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(sessions * messagesPerSession);
+
+        for (int i = 0; i < messagesPerSession; i++) {
+            for (int s = 0; s < sessions; s++) {
+                String sessionId = "room-" + s;
+                int sequence = i;
+                executor.execute(new Task(message("/app/chat/" + sessionId, "ws-" + s), () -> {
+                    handled.computeIfAbsent(sessionId, id -> new CopyOnWriteArrayList<>()).add(sequence);
+                    done.countDown();
+                }));
+            }
+        }
+
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+        assertThat(handled).hasSize(sessions);
+        handled.values().forEach(sequence -> assertThat(sequence).isSorted().hasSize(messagesPerSession));
+    }
+
+    private static Message<byte[]> message(String destination, String webSocketSessionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
+        accessor.setDestination(destination);
+        accessor.setSessionId(webSocketSessionId);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private record Task(Message<?> message, Runnable work) implements MessageHandlingRunnable {
+        @Override
+        public Message<?> getMessage() {
+            return message;
+        }
+
+        @Override
+        public MessageHandler getMessageHandler() {
+            return m -> work.run();
+        }
+
+        @Override
+        public void run() {
+            work.run();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright © 2025 BellSoft (info@bell-sw.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.asm0dey.chatapi.config;
+
+import com.github.asm0dey.chatapi.ChatApiApplication;
+import com.github.asm0dey.chatapi.model.ChatMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Starts two chat-api instances in relay mode against one STOMP broker and checks that a message
+ * sent to one instance reaches a subscriber connected to the other.
+ */
+@Testcontainers
+class WebSocketBrokerRelayTest {
+
+    @Container
+    static MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo");
+
+    @Container
+    static GenericContainer<?> stompBroker = new GenericContainer<>("apache/activemq-classic:6.1.4")
+            .withExposedPorts(61613)
+            .waitingFor(Wait.forListeningPort());
+
+    private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+
+    @AfterEach
+    void stopNodes() {
+        nodes.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void fansOutMessagesAcrossInstances() throws Exception {
+        StompSession subscriberSession = connect(startNode(true));
+        StompSession senderSession = connect(startNode(false));
+        String sessionId = "relay-session-" + System.currentTimeMillis();
+
+        CompletableFuture<ChatMessage> received = new CompletableFuture<>();
+        subscriberSession.subscribe("/topic/chat/" + sessionId, new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return ChatMessage.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                received.complete((ChatMessage) payload);
+            }
+        });
+        // Let the subscription reach the broker before publishing from the other instance
+        Thread.sleep(1000);
+
+        ChatMessage join = new ChatMessage();
+        join.setSenderName("relayUser");
+        senderSession.send("/app/chat/" + sessionId + "/join", join);
+
+        ChatMessage message = received.get(10, TimeUnit.SECONDS);
+        assertThat(message.getType()).isEqualTo(ChatMessage.MessageType.JOIN);
+        assertThat(message.getSenderName()).isEqualTo("relayUser");
+        assertThat(message.getSessionId()).isEqualTo(sessionId);
+    }
+
+    private int startNode(boolean createTestUsers) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ChatApiApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.data.mongodb.uri=" + mongoDBContainer.getReplicaSetUrl("chat"),
+                        "app.create-test-users=" + createTestUsers,
+                        "chat.broker.mode=relay",
+                        "chat.broker.relay.host=" + stompBroker.getHost(),
+                        "chat.broker.relay.port=" + stompBroker.getMappedPort(61613),
+                        "chat.broker.relay.login=admin",
+                        "chat.broker.relay.passcode=admin")
+                .run();
+        nodes.add(context);
+        return ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    private static StompSession connect(int port) throws Exception {
+        WebSocketStompClient stompClient = new WebSocketStompClient(
+                new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient()))));
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+        return stompClient.connectAsync("ws://localhost:" + port + "/ws", new StompSessionHandlerAdapter() {
+        }).get(5, TimeUnit.SECONDS);
+    }
+}
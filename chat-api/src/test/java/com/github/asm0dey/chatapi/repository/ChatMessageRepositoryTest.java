@@ -0,0 +1,103 @@
+/*
+ * Copyright © 2025 BellSoft (info@bell-sw.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.asm0dey.chatapi.repository;
+
+import com.github.asm0dey.chatapi.model.ChatMessage;
+import com.github.asm0dey.chatapi.model.MessageCursor;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Testcontainers
+class ChatMessageRepositoryTest {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo");
+
+    @Autowired
+    private ChatMessageRepository chatMessageRepository;
+
+    private String sessionId;
+    private List<String> newestFirst;
+
+    @BeforeEach
+    void setUp() {
+        sessionId = "cursor-session-" + System.nanoTime();
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        List<ChatMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            ChatMessage message = new ChatMessage();
+            message.setId(new ObjectId().toHexString());
+            message.setSessionId(sessionId);
+            message.setContent("Message " + i);
+            // Every three messages share a timestamp, so the ID has to break ties
+            message.setTimestamp(start.plusSeconds(i / 3));
+            messages.add(message);
+        }
+        chatMessageRepository.saveAll(messages);
+        newestFirst = messages.reversed().stream().map(ChatMessage::getId).toList();
+    }
+
+    @Test
+    void pagesBackwardsThroughWholeHistory() {
+        List<String> seen = new ArrayList<>();
+        MessageCursor cursor = null;
+        List<ChatMessage> page;
+        do {
+            page = chatMessageRepository.findBySessionIdBefore(sessionId, cursor, 7);
+            page.forEach(message -> seen.add(message.getId()));
+            if (!page.isEmpty()) {
+                cursor = MessageCursor.decode(MessageCursor.of(page.getLast()).encode());
+            }
+        } while (!page.isEmpty());
+
+        assertThat(seen).containsExactlyElementsOf(newestFirst);
+    }
+
+    @Test
+    void pagesForwardsFromCursor() {
+        List<ChatMessage> older = chatMessageRepository.findBySessionIdBefore(sessionId, null, 25).subList(10, 25);
+        MessageCursor cursor = MessageCursor.of(older.getFirst());
+
+        List<ChatMessage> newer = chatMessageRepository.findBySessionIdAfter(sessionId, cursor, 4);
+
+        assertThat(newer).extracting(ChatMessage::getId)
+                .containsExactlyElementsOf(newestFirst.subList(6, 10).reversed());
+    }
+
+    @Test
+    void streamsSessionOldestFirstInSmallBatches() {
+        try (Stream<ChatMessage> stream = chatMessageRepository.streamBySessionId(sessionId, 4)) {
+            assertThat(stream.map(ChatMessage::getId)).containsExactlyElementsOf(newestFirst.reversed());
+        }
+    }
+}
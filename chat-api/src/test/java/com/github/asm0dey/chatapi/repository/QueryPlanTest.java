@@ -0,0 +1,158 @@
+/*
+ * Copyright © 2025 BellSoft (info@bell-sw.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.asm0dey.chatapi.repository;
+
+import com.github.asm0dey.chatapi.model.ChatMessage;
+import com.github.asm0dey.chatapi.model.ChatSession;
+import com.github.asm0dey.chatapi.model.MessageCursor;
+import com.mongodb.client.model.Filters;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.lang.reflect.Method;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs every repository query with the database profiler on and fails if any of them scanned a whole collection.
+ * A repository method added without an entry here fails the test too, so new query shapes cannot skip the check.
+ */
+@SpringBootTest
+@Testcontainers
+class QueryPlanTest {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo");
+
+    @Autowired
+    private ChatMessageRepository chatMessageRepository;
+    @Autowired
+    private ChatSessionRepository chatSessionRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Test
+    void repositoryQueriesUseIndexes() {
+        String sessionId = "plan-session-" + System.nanoTime();
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        chatSessionRepository.save(ChatSession.builder()
+                .id(sessionId)
+                .name("Plan Session")
+                .createdBy("alice")
+                .participants(List.of("alice", "bob"))
+                .lastMessageAt(now)
+                .build());
+        List<ChatMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            ChatMessage message = new ChatMessage();
+            message.setId(new ObjectId().toHexString());
+            message.setSessionId(sessionId);
+            message.setContent("Message " + i);
+            message.setTimestamp(now.plusSeconds(i));
+            messages.add(message);
+        }
+        chatMessageRepository.saveAll(messages);
+        MessageCursor cursor = MessageCursor.of(messages.get(5));
+
+        Map<String, Runnable> queries = Map.ofEntries(
+                Map.entry("findBySessionId", () -> {
+                    chatMessageRepository.findBySessionId(sessionId);
+                    chatMessageRepository.findBySessionId(sessionId,
+                            PageRequest.of(1, 3, Sort.by(Sort.Direction.DESC, "timestamp")));
+                }),
+                Map.entry("findBySessionIdAndTimestampAfter", () ->
+                        chatMessageRepository.findBySessionIdAndTimestampAfter(sessionId, now)),
+                Map.entry("countBySessionId", () -> chatMessageRepository.countBySessionId(sessionId)),
+                Map.entry("findBySessionIdBefore", () -> {
+                    chatMessageRepository.findBySessionIdBefore(sessionId, null, 3);
+                    chatMessageRepository.findBySessionIdBefore(sessionId, cursor, 3);
+                }),
+                Map.entry("findBySessionIdAfter", () -> chatMessageRepository.findBySessionIdAfter(sessionId, cursor, 3)),
+                Map.entry("streamAll", () -> {
+                    try (Stream<ChatMessage> stream = chatMessageRepository.streamAll(4)) {
+                        stream.forEach(message -> {
+                        });
+                    }
+                }),
+                Map.entry("streamBySessionId", () -> {
+                    try (Stream<ChatMessage> stream = chatMessageRepository.streamBySessionId(sessionId, 4)) {
+                        stream.forEach(message -> {
+                        });
+                    }
+                }),
+                Map.entry("findByParticipant", () -> {
+                    chatSessionRepository.findByParticipant("alice");
+                    chatSessionRepository.findByParticipant("alice",
+                            PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "lastMessageAt")));
+                }),
+                Map.entry("findAllSummaries", () -> {
+                    chatSessionRepository.findAllSummaries();
+                    userRepository.findAllSummaries();
+                }),
+                Map.entry("findByUsername", () -> userRepository.findByUsername("admin1")),
+                Map.entry("existsByUsername", () -> userRepository.existsByUsername("admin1")),
+                Map.entry("existsByEmail", () -> userRepository.existsByEmail("admin1@example.com")));
+
+        Set<String> declared = Stream.of(ChatMessageRepository.class, ChatMessageRepositoryCustom.class,
+                        ChatSessionRepository.class, ChatSessionRepositoryCustom.class,
+                        UserRepository.class, UserRepositoryCustom.class)
+                .flatMap(repository -> Arrays.stream(repository.getDeclaredMethods()))
+                .map(Method::getName)
+                .collect(Collectors.toSet());
+        assertThat(queries.keySet()).as("Every repository method needs a query here").containsAll(declared);
+
+        mongoTemplate.getDb().runCommand(new Document("profile", 2));
+        try {
+            queries.values().forEach(Runnable::run);
+        } finally {
+            mongoTemplate.getDb().runCommand(new Document("profile", 0));
+        }
+
+        List<Document> profiled = mongoTemplate.getDb().getCollection("system.profile")
+                .find(Filters.exists("planSummary"))
+                .into(new ArrayList<>());
+        assertThat(profiled).as("The profiler should record the queries").isNotEmpty();
+        // Change stream cursors read the oplog, not the collection, so they are not query shapes to check
+        List<String> collectionScans = profiled.stream()
+                .filter(operation -> operation.getString("planSummary").contains("COLLSCAN"))
+                .map(Document::toJson)
+                .filter(json -> !json.contains("$changeStream"))
+                .toList();
+        assertThat(collectionScans).as("Queries that scanned a whole collection").isEmpty();
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright © 2025 BellSoft (info@bell-sw.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.asm0dey.chatapi.repository;
+
+import com.github.asm0dey.chatapi.model.ChatSession;
+import com.github.asm0dey.chatapi.model.UserSummary;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Testcontainers
+class SummaryProjectionTest {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo");
+
+    @Autowired
+    private ChatSessionRepository chatSessionRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void summarizesSessionsWithParticipantCount() {
+        String sessionId = "summary-session-" + System.nanoTime();
+        chatSessionRepository.save(ChatSession.builder()
+                .id(sessionId)
+                .name("Summary Session")
+                .createdBy("alice")
+                .participants(List.of("alice", "bob", "carol"))
+                .isActive(true)
+                .botEnabled(true)
+                .createdAt(LocalDateTime.now())
+                .build());
+
+        assertThat(chatSessionRepository.findAllSummaries())
+                .filteredOn(summary -> summary.id().equals(sessionId))
+                .singleElement()
+                .satisfies(summary -> {
+                    assertThat(summary.name()).isEqualTo("Summary Session");
+                    assertThat(summary.participantCount()).isEqualTo(3);
+                    assertThat(summary.active()).isTrue();
+                    assertThat(summary.botEnabled()).isTrue();
+                });
+    }
+
+    @Test
+    void summarizesUsersCreatedAtStartup() {
+        assertThat(userRepository.findAllSummaries())
+                .extracting(UserSummary::username)
+                .contains("admin1");
+        assertThat(userRepository.findAllSummaries())
+                .filteredOn(summary -> summary.username().equals("admin1"))
+                .singleElement()
+                .satisfies(summary -> assertThat(summary.roles()).containsExactly("ADMIN"));
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright © 2025 BellSoft (info@bell-sw.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.asm0dey.chatapi.service;
+
+import com.github.asm0dey.chatapi.model.ChatSession;
+import com.github.asm0dey.chatapi.repository.ChatSessionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against a single-node replica set, which MongoDBContainer starts by default,
+ * so the change stream invalidation is exercised for real.
+ */
+@SpringBootTest
+@Testcontainers
+class ChatSessionServiceTest {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo");
+
+    @Autowired
+    private ChatSessionService chatSessionService;
+    @Autowired
+    private ChatSessionRepository chatSessionRepository;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private String sessionId;
+
+    @BeforeEach
+    void setUp() {
+        sessionId = "cached-session-" + System.nanoTime();
+        chatSessionRepository.save(ChatSession.builder()
+                .id(sessionId)
+                .name("Cached Session")
+                .createdBy("alice")
+                .participants(List.of("alice"))
+                .botEnabled(true)
+                .createdAt(LocalDateTime.now())
+                .build());
+    }
+
+    @Test
+    void invalidatesSessionChangedOutsideTheService() throws InterruptedException {
+        assertThat(chatSessionService.findById(sessionId)).get()
+                .extracting(ChatSession::isBotEnabled).isEqualTo(true);
+
+        // Simulate a write from another replica
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(sessionId)),
+                new Update().set("botEnabled", false), ChatSession.class);
+
+        awaitTrue(() -> chatSessionService.findById(sessionId).map(s -> !s.isBotEnabled()).orElse(false));
+    }
+
+    @Test
+    void invalidatesParticipantIndexOnInsert() throws InterruptedException {
+        assertThat(chatSessionService.findByParticipant("alice"))
+                .extracting(ChatSession::getId).contains(sessionId);
+
+        String otherId = sessionId + "-other";
+        mongoTemplate.insert(ChatSession.builder()
+                .id(otherId)
+                .name("Other Session")
+                .createdBy("alice")
+                .participants(List.of("alice"))
+                .build());
+
+        awaitTrue(() -> chatSessionService.findByParticipant("alice").stream()
+                .anyMatch(session -> session.getId().equals(otherId)));
+    }
+
+    @Test
+    void dropsSessionDeletedOutsideTheService() throws InterruptedException {
+        assertThat(chatSessionService.findById(sessionId)).isPresent();
+
+        chatSessionRepository.deleteById(sessionId);
+
+        awaitTrue(() -> chatSessionService.findById(sessionId).isEmpty());
+        assertThat(chatSessionService.findByParticipant("alice"))
+                .extracting(ChatSession::getId).doesNotContain(sessionId);
+    }
+
+    @Test
+    void callersCannotModifyCachedSessions() {
+        chatSessionService.findById(sessionId).orElseThrow().setBotEnabled(false);
+        chatSessionService.findByParticipant("alice").forEach(session -> session.getParticipants().clear());
+
+        assertThat(chatSessionService.findById(sessionId)).get()
+                .extracting(ChatSession::isBotEnabled).isEqualTo(true);
+        assertThat(chatSessionService.findByParticipant("alice"))
+                .extracting(ChatSession::getId).contains(sessionId);
+    }
+
+    @Test
+    void resolveSessionCreatesMissingSessionWithUpsert() {
+        String newId = sessionId + "-new";
+
+        ChatSessionService.SessionMetadata metadata = chatSessionService.resolveSession(newId, "bob");
+
+        assertThat(metadata.botEnabled()).isTrue();
+        assertThat(chatSessionRepository.findById(newId)).get()
+                .extracting(ChatSession::getParticipants).isEqualTo(List.of("bob"));
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(50);
+        }
+    }
+}
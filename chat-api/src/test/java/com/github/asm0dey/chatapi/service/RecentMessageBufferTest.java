@@ -0,0 +1,100 @@
+/*
+ * Copyright © 2025 BellSoft (info@bell-sw.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.asm0dey.chatapi.service;
+
+import com.github.asm0dey.chatapi.model.ChatMessage;
+import com.github.asm0dey.chatapi.model.MessageCursor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecentMessageBufferTest {
+
+    private static final String SESSION = "session";
+
+    private final LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS).plusSeconds(1);
+
+    @Test
+    void servesRangesAfterTheBufferStarted() {
+        RecentMessageBuffer buffer = buffer("simple", 10);
+        List<ChatMessage> messages = append(buffer, 5);
+
+        assertThat(buffer.findAfter(SESSION, messages.get(1).getTimestamp())).get()
+                .isEqualTo(messages.subList(2, 5));
+        assertThat(buffer.findAfter(SESSION, MessageCursor.of(messages.get(2)), 10)).get()
+                .isEqualTo(messages.subList(3, 5));
+        assertThat(buffer.findBefore(SESSION, MessageCursor.of(messages.get(4)), 3)).get()
+                .isEqualTo(messages.subList(1, 4).reversed());
+    }
+
+    @Test
+    void fallsBackForRangesBeforeTheBufferStarted() {
+        RecentMessageBuffer buffer = buffer("simple", 10);
+        append(buffer, 3);
+
+        // Older messages may only be in MongoDB
+        assertThat(buffer.findAfter(SESSION, start.minusDays(1))).isEmpty();
+        assertThat(buffer.findBefore(SESSION, null, 4)).isEmpty();
+        assertThat(buffer.findAfter("other-session", start)).isEmpty();
+    }
+
+    @Test
+    void fallsBackForRangesOverwrittenInTheRing() {
+        RecentMessageBuffer buffer = buffer("simple", 3);
+        List<ChatMessage> messages = append(buffer, 6);
+
+        assertThat(buffer.findAfter(SESSION, messages.get(1).getTimestamp())).isEmpty();
+        assertThat(buffer.findAfter(SESSION, messages.get(2).getTimestamp())).get()
+                .isEqualTo(messages.subList(3, 6));
+        assertThat(buffer.findBefore(SESSION, null, 3)).get()
+                .isEqualTo(messages.subList(3, 6).reversed());
+    }
+
+    @Test
+    void isDisabledWithBrokerRelay() {
+        RecentMessageBuffer buffer = buffer("relay", 10);
+        List<ChatMessage> messages = append(buffer, 3);
+
+        assertThat(buffer.findAfter(SESSION, messages.getFirst().getTimestamp())).isEmpty();
+    }
+
+    private static RecentMessageBuffer buffer(String brokerMode, int messagesPerSession) {
+        return new RecentMessageBuffer(new SimpleMeterRegistry(), true, brokerMode, messagesPerSession,
+                1_000, Duration.ofMinutes(30));
+    }
+
+    private List<ChatMessage> append(RecentMessageBuffer buffer, int count) {
+        List<ChatMessage> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ChatMessage message = new ChatMessage();
+            message.setId(new ObjectId().toHexString());
+            message.setSessionId(SESSION);
+            message.setContent("Message " + i);
+            message.setTimestamp(start.plusSeconds(i));
+            buffer.append(message);
+            messages.add(message);
+        }
+        return messages;
+    }
+}